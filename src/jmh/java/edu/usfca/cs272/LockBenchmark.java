@@ -0,0 +1,247 @@
+package edu.usfca.cs272;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares the read/write locks guarding a multithreaded inverted index under
+ * a reader heavy query workload: six threads size, get, and search the inverted
+ * index while one thread occasionally merges a new document in and removes it
+ * again. Each lock is measured by the throughput of every kind of operation.
+ *
+ * Run with {@code mvn -P jmh compile exec:exec}.
+ *
+ * @author Nino Estrada
+ * @author CS 272 Software Development (University of San Francisco)
+ * @version Fall 2022
+ *
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LockBenchmark
+{
+	/**
+	 * Number of Documents in the Inverted Index
+	 */
+	private static final int DOCUMENTS = 200;
+
+	/**
+	 * Number of Words in Each Document
+	 */
+	private static final int WORDS_PER_DOCUMENT = 200;
+
+	/**
+	 * Number of Different Words Across All the Documents
+	 */
+	private static final int VOCABULARY = 2000;
+
+	/**
+	 * Units of Busy Work the Writer Does Between Two Writes, so Writes Stay Occasional
+	 */
+	private static final long WRITE_PAUSE = 20_000;
+
+	/**
+	 * Lock Being Measured
+	 */
+	@Param({"monitor", "writer", "stamped"})
+	public String lock_type;
+
+	/**
+	 * Lock Guarding the Inverted Index
+	 */
+	private ReadWriteLock lock;
+
+	/**
+	 * Worker Threads the Inverted Index Requires, Unused by the Benchmark
+	 */
+	private WorkQueue workers;
+
+	/**
+	 * Inverted Index Read and Written by the Benchmark
+	 */
+	private MTInvertedIndex index;
+
+	/**
+	 * Document the Writer Merges In and Removes Again
+	 */
+	private InvertedIndex written;
+
+	/**
+	 * Next Word Each Reader Looks Up
+	 */
+	private final AtomicInteger next_word = new AtomicInteger();
+
+	/**
+	 * Builds the inverted index guarded by the lock being measured
+	 */
+	@Setup(Level.Trial)
+	public void setup()
+	{
+		if (lock_type.equals("writer"))
+		{
+			lock = new WriterPreferringReadWriteLock();
+		}
+		else if (lock_type.equals("stamped"))
+		{
+			lock = new StampedReadWriteLock();
+		}
+		else
+		{
+			lock = new ReadWriteLock();
+		}
+
+		workers = new WorkQueue(2);
+		index = new MTInvertedIndex(workers, lock, 1, 1, 1, 0);
+
+		Random random = new Random(272);
+
+		for (int document = 0; document < DOCUMENTS; document++)
+		{
+			InvertedIndex local = new InvertedIndex(false);
+			local.add(randomWords(random), "document" + document);
+			index.merge(local);
+		}
+
+		written = new InvertedIndex(false);
+		written.add(randomWords(random), "written");
+	}
+
+	/**
+	 * Terminates the worker threads
+	 */
+	@TearDown(Level.Trial)
+	public void tearDown()
+	{
+		workers.join();
+	}
+
+	/**
+	 * Picks the words of one document
+	 *
+	 * @param random is the source of the words
+	 * @return the words of the document
+	 */
+	private static ArrayList<String> randomWords(Random random)
+	{
+		ArrayList<String> words = new ArrayList<>(WORDS_PER_DOCUMENT);
+
+		for (int i = 0; i < WORDS_PER_DOCUMENT; i++)
+		{
+			words.add("w" + random.nextInt(VOCABULARY));
+		}
+
+		return words;
+	}
+
+	/**
+	 * @return the next word a reader looks up
+	 */
+	private String nextWord()
+	{
+		return "w" + Math.floorMod(next_word.getAndIncrement() * 31, VOCABULARY);
+	}
+
+	/**
+	 * Reads the number of words, optimistically if the lock allows it
+	 *
+	 * @return the number of words in the inverted index
+	 */
+	@Benchmark
+	@Group("query")
+	@GroupThreads(2)
+	public int size()
+	{
+		return index.size();
+	}
+
+	/**
+	 * Reads the documents and positions of one word under the read lock
+	 *
+	 * @return the number of documents with the word
+	 */
+	@Benchmark
+	@Group("query")
+	@GroupThreads(2)
+	public int get()
+	{
+		String word = nextWord();
+
+		lock.read().lock();
+
+		try
+		{
+			Map<String, ArrayList<Integer>> documents = index.get(word);
+
+			return documents == null ? 0 : documents.size();
+		}
+		finally
+		{
+			lock.read().unlock();
+		}
+	}
+
+	/**
+	 * Searches for the words starting with a prefix under the read lock, the way
+	 * a partial search counts the matches of one query word
+	 *
+	 * @return the matches of the query word in each document
+	 */
+	@Benchmark
+	@Group("query")
+	@GroupThreads(2)
+	public Map<String, Integer> search()
+	{
+		String word = nextWord();
+		String prefix = word.substring(0, Math.min(3, word.length()));
+
+		lock.read().lock();
+
+		try
+		{
+			return QueryReader.countMatches(index, prefix, true);
+		}
+		finally
+		{
+			lock.read().unlock();
+		}
+	}
+
+	/**
+	 * Merges a document into the inverted index and removes it again, after a
+	 * pause so writes are occasional compared to the reads
+	 */
+	@Benchmark
+	@Group("query")
+	@GroupThreads(1)
+	public void merge()
+	{
+		Blackhole.consumeCPU(WRITE_PAUSE);
+
+		index.merge(written);
+		index.remove("written");
+	}
+}
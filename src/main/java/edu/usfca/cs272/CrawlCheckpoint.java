@@ -0,0 +1,162 @@
+package edu.usfca.cs272;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.TreeMap;
+
+/**
+ * The progress of a web crawl saved to disk, so that an interrupted crawl can
+ * be resumed instead of starting over from the seed. Holds the URLs already
+ * claimed, the URLs claimed but not yet indexed, the number of URLs crawled, the
+ * partially built inverted index, and what was fetched from each indexed URL.
+ *
+ * @author Nino Estrada
+ * @author CS 272 Software Development (University of San Francisco)
+ * @version Fall 2022
+ *
+ */
+public class CrawlCheckpoint implements Serializable
+{
+	/**
+	 * Version of the Saved Format
+	 */
+	private static final long serialVersionUID = 2L;
+
+	/**
+	 * Mapping from Words to the URLs and Positions Indexed so Far
+	 */
+	private final TreeMap<String, TreeMap<String, ArrayList<Integer>>> index;
+
+	/**
+	 * URLs Claimed for Crawling
+	 */
+	private final HashSet<String> seen;
+
+	/**
+	 * URLs Claimed for Crawling but Not Yet Indexed
+	 */
+	private final ArrayList<String> pending;
+
+	/**
+	 * Number of URLs Claimed for Crawling
+	 */
+	private final int total;
+
+	/**
+	 * What was Fetched from Each Indexed URL, so a Later Crawl can Skip Unchanged Pages
+	 */
+	private final HashMap<String, CrawlPage> pages;
+
+	/**
+	 * Instantiates the checkpoint. The collections are kept, not copied.
+	 *
+	 * @param index is the mapping from words to the URLs and positions indexed so far
+	 * @param seen is the URLs claimed for crawling
+	 * @param pending is the URLs claimed but not yet indexed
+	 * @param total is the number of URLs claimed for crawling
+	 * @param pages is what was fetched from each indexed URL
+	 */
+	public CrawlCheckpoint(TreeMap<String, TreeMap<String, ArrayList<Integer>>> index, HashSet<String> seen, ArrayList<String> pending, int total, HashMap<String, CrawlPage> pages)
+	{
+		this.index = index;
+		this.seen = seen;
+		this.pending = pending;
+		this.total = total;
+		this.pages = pages;
+	}
+
+	/**
+	 * @return the mapping from words to the URLs and positions indexed so far
+	 */
+	public TreeMap<String, TreeMap<String, ArrayList<Integer>>> getIndex()
+	{
+		return index;
+	}
+
+	/**
+	 * @return the URLs claimed for crawling
+	 */
+	public HashSet<String> getSeen()
+	{
+		return seen;
+	}
+
+	/**
+	 * @return the URLs claimed but not yet indexed
+	 */
+	public ArrayList<String> getPending()
+	{
+		return pending;
+	}
+
+	/**
+	 * @return the number of URLs claimed for crawling
+	 */
+	public int getTotal()
+	{
+		return total;
+	}
+
+	/**
+	 * @return what was fetched from each indexed URL
+	 */
+	public HashMap<String, CrawlPage> getPages()
+	{
+		return pages;
+	}
+
+	/**
+	 * Writes the checkpoint to the path. It is first written next to the path and
+	 * then moved over it, so the path always holds a complete checkpoint even if
+	 * the program stops while writing.
+	 *
+	 * @param path is the file to write the checkpoint to
+	 * @throws IOException if the checkpoint could not be written
+	 */
+	public void write(Path path) throws IOException
+	{
+		Path absolute = path.toAbsolutePath();
+		Path temporary = Files.createTempFile(absolute.getParent(), absolute.getFileName().toString(), ".tmp");
+
+		try
+		{
+			try (ObjectOutputStream output = new ObjectOutputStream(Files.newOutputStream(temporary)))
+			{
+				output.writeObject(this);
+			}
+
+			Files.move(temporary, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+		finally
+		{
+			Files.deleteIfExists(temporary);
+		}
+	}
+
+	/**
+	 * Reads a checkpoint written by {@link #write(Path)}
+	 *
+	 * @param path is the file to read the checkpoint from
+	 * @return the checkpoint
+	 * @throws IOException if the checkpoint could not be read
+	 */
+	public static CrawlCheckpoint read(Path path) throws IOException
+	{
+		try (ObjectInputStream input = new ObjectInputStream(Files.newInputStream(path)))
+		{
+			return (CrawlCheckpoint) input.readObject();
+		}
+		catch (ClassNotFoundException | ClassCastException e)
+		{
+			throw new IOException("Not a crawl checkpoint: " + path, e);
+		}
+	}
+}
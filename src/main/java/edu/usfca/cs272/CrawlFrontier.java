@@ -0,0 +1,168 @@
+package edu.usfca.cs272;
+
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps track of the URLs found while web crawling, so that each URL is only
+ * crawled once and no more than the maximum number of URLs are crawled. Safe to
+ * use from multiple worker threads without any locking.
+ *
+ * @author Nino Estrada
+ * @author CS 272 Software Development (University of San Francisco)
+ * @version Fall 2022
+ *
+ */
+public class CrawlFrontier
+{
+	/**
+	 * URLs Claimed for Crawling, Keyed by their Normalized String so no DNS Lookup is Needed to Compare Them
+	 */
+	private final Set<String> seen;
+
+	/**
+	 * URLs Claimed for Crawling that have Not Finished: Crawled Again if the Crawl is Resumed
+	 */
+	private final Set<String> pending;
+
+	/**
+	 * Total Number of URLs to Crawl
+	 */
+	private final int max_crawl;
+
+	/**
+	 * Keep Track of Current URLs Crawled
+	 */
+	private final AtomicInteger total_crawl;
+
+	/**
+	 * Instantiates an empty frontier. The seed is always crawled, so at least
+	 * 1 URL can be claimed even if the maximum is lower.
+	 *
+	 * @param max_crawl maximum URLs to crawl
+	 */
+	public CrawlFrontier(int max_crawl)
+	{
+		this.seen = ConcurrentHashMap.newKeySet();
+		this.pending = ConcurrentHashMap.newKeySet();
+		this.max_crawl = Math.max(1, max_crawl);
+		this.total_crawl = new AtomicInteger(0);
+	}
+
+	/**
+	 * Claims the URL for crawling if it has not been seen before and the maximum
+	 * number of URLs has not been reached. Only one thread will ever claim a URL.
+	 *
+	 * @param url is a normalized URL found while crawling
+	 * @return true if the URL should be crawled by the caller
+	 */
+	public boolean claim(URL url)
+	{
+		// No Need to Look at the URL Once the Maximum is Reached
+		if (isFull())
+		{
+			return false;
+		}
+
+		// URL.equals May Resolve the Host, but the String does Not
+		String key = url.toString();
+
+		// Another Thread Already Claimed this URL
+		if (!seen.add(key))
+		{
+			return false;
+		}
+
+		// Increment Total URL Crawled Unless Another Thread Reached the Maximum First
+		if (total_crawl.getAndUpdate(total -> total < max_crawl ? total + 1 : total) < max_crawl)
+		{
+			pending.add(key);
+			return true;
+		}
+
+		// Was Not Crawled, so Not Considered Seen
+		seen.remove(key);
+		return false;
+	}
+
+	/**
+	 * Marks a claimed URL as finished, whether or not it could be crawled
+	 *
+	 * @param url is a URL returned true by {@link #claim(URL)}
+	 */
+	public void finish(URL url)
+	{
+		pending.remove(url.toString());
+	}
+
+	/**
+	 * Checks if the URL was claimed for crawling
+	 *
+	 * @param url is a normalized URL as a string
+	 * @return true if the URL was claimed
+	 */
+	public boolean hasClaimed(String url)
+	{
+		return seen.contains(url);
+	}
+
+	/**
+	 * Restores the URLs claimed by an earlier crawl
+	 *
+	 * @param seen is the URLs claimed for crawling
+	 * @param pending is the URLs claimed that had not finished
+	 * @param total is the number of URLs claimed for crawling
+	 */
+	public void restore(Collection<String> seen, Collection<String> pending, int total)
+	{
+		this.seen.addAll(seen);
+		this.pending.addAll(pending);
+		total_crawl.set(total);
+	}
+
+	/**
+	 * Copies the URLs claimed for crawling. Only consistent with
+	 * {@link #getPending()} while no URLs are being claimed or finished.
+	 *
+	 * @return a copy of the claimed URLs
+	 */
+	public HashSet<String> getSeen()
+	{
+		return new HashSet<>(seen);
+	}
+
+	/**
+	 * Copies the URLs claimed for crawling that have not finished
+	 *
+	 * @return a copy of the unfinished URLs
+	 */
+	public ArrayList<String> getPending()
+	{
+		return new ArrayList<>(pending);
+	}
+
+	/**
+	 * Checks if the maximum number of URLs have been claimed
+	 *
+	 * @return true if no more URLs will be claimed
+	 */
+	public boolean isFull()
+	{
+		return total_crawl.get() >= max_crawl;
+	}
+
+	/**
+	 * Provides the number of URLs claimed for crawling
+	 *
+	 * @return the number of URLs claimed
+	 */
+	public int size()
+	{
+		return total_crawl.get();
+	}
+}
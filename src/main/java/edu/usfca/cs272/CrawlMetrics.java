@@ -0,0 +1,163 @@
+package edu.usfca.cs272;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Counts what a web crawl transferred, so the bytes sent over the wire can be
+ * compared with the bytes of HTML they decoded to, and the links that could
+ * not be followed. The counters are shared by every fetch and worker thread
+ * and are safe to update without any locking.
+ *
+ * @author Nino Estrada
+ * @author CS 272 Software Development (University of San Francisco)
+ * @version Fall 2022
+ *
+ */
+public class CrawlMetrics
+{
+	/** Logger used for this class. */
+	private static final Logger log = LogManager.getLogger();
+
+	/**
+	 * Number of Pages Whose HTML was Read
+	 */
+	private static final LongAdder pages = new LongAdder();
+
+	/**
+	 * Bytes of Response Bodies Read from the Network, Possibly Compressed
+	 */
+	private static final LongAdder wire_bytes = new LongAdder();
+
+	/**
+	 * Bytes of HTML After the Response Bodies were Decompressed
+	 */
+	private static final LongAdder decoded_bytes = new LongAdder();
+
+	/**
+	 * Number of Pages the Server Said had Not Changed Since they were Last Fetched
+	 */
+	private static final LongAdder not_modified = new LongAdder();
+
+	/**
+	 * Number of Links that Could Not be Made into a Valid URL
+	 */
+	private static final LongAdder invalid_links = new LongAdder();
+
+	/**
+	 * Only Static Counters: Never Instantiated
+	 */
+	private CrawlMetrics()
+	{
+	}
+
+	/**
+	 * Counts one page whose HTML was read
+	 *
+	 * @param decoded is the number of bytes of HTML read from the page
+	 */
+	public static void addPage(long decoded)
+	{
+		pages.increment();
+		decoded_bytes.add(decoded);
+	}
+
+	/**
+	 * Counts bytes read from the network
+	 *
+	 * @param bytes is the number of bytes read, before any decompression
+	 */
+	public static void addWireBytes(long bytes)
+	{
+		wire_bytes.add(bytes);
+	}
+
+	/**
+	 * Counts one page the server said had not changed since it was last fetched
+	 */
+	public static void addNotModified()
+	{
+		not_modified.increment();
+	}
+
+	/**
+	 * Counts one link that could not be made into a valid URL
+	 */
+	public static void addInvalidLink()
+	{
+		invalid_links.increment();
+	}
+
+	/**
+	 * Provides the number of pages whose HTML was read
+	 *
+	 * @return the number of pages
+	 */
+	public static long getPages()
+	{
+		return pages.sum();
+	}
+
+	/**
+	 * Provides the bytes read from the network
+	 *
+	 * @return the bytes before decompression
+	 */
+	public static long getWireBytes()
+	{
+		return wire_bytes.sum();
+	}
+
+	/**
+	 * Provides the bytes of HTML the network bytes decoded to
+	 *
+	 * @return the bytes after decompression
+	 */
+	public static long getDecodedBytes()
+	{
+		return decoded_bytes.sum();
+	}
+
+	/**
+	 * Provides the number of pages the server said had not changed
+	 *
+	 * @return the number of pages not sent again
+	 */
+	public static long getNotModified()
+	{
+		return not_modified.sum();
+	}
+
+	/**
+	 * Provides the number of links that could not be made into a valid URL
+	 *
+	 * @return the number of invalid links
+	 */
+	public static long getInvalidLinks()
+	{
+		return invalid_links.sum();
+	}
+
+	/**
+	 * Sets every counter back to zero, such as before a new crawl
+	 */
+	public static void reset()
+	{
+		pages.reset();
+		wire_bytes.reset();
+		decoded_bytes.reset();
+		not_modified.reset();
+		invalid_links.reset();
+	}
+
+	/**
+	 * Logs the counters collected so far
+	 */
+	public static void report()
+	{
+		log.debug("Crawl read {} pages: {} bytes on the wire decoded to {} bytes of HTML.", getPages(), getWireBytes(), getDecodedBytes());
+		log.debug("Crawl found {} pages not modified and {} invalid links.", getNotModified(), getInvalidLinks());
+	}
+}
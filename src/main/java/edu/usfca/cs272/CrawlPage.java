@@ -0,0 +1,143 @@
+package edu.usfca.cs272;
+
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * What a web crawl remembers about one fetched page, so that a later crawl can
+ * ask the server whether the page changed and skip indexing it again if it did
+ * not. Holds the validators the server sent with the page, a hash of its HTML,
+ * and the links found in it.
+ *
+ * @author Nino Estrada
+ * @author CS 272 Software Development (University of San Francisco)
+ * @version Fall 2022
+ *
+ */
+public class CrawlPage implements Serializable
+{
+	/**
+	 * Version of the Saved Format
+	 */
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * "ETag" Header Sent with the Page, or Null
+	 */
+	private final String etag;
+
+	/**
+	 * "Last-Modified" Header Sent with the Page, or Null
+	 */
+	private final String last_modified;
+
+	/**
+	 * HTML of the Page, Only Until it is Parsed: Never Saved
+	 */
+	private transient String html;
+
+	/**
+	 * Hash of the HTML of the Page
+	 */
+	private String hash;
+
+	/**
+	 * Links Found in the Page, in the Order they were Found
+	 */
+	private ArrayList<String> links;
+
+	/**
+	 * Instantiates a page that was just fetched
+	 *
+	 * @param html is the HTML of the page
+	 * @param etag is the "ETag" header sent with the page, or null
+	 * @param last_modified is the "Last-Modified" header sent with the page, or null
+	 */
+	public CrawlPage(String html, String etag, String last_modified)
+	{
+		this.html = html;
+		this.etag = etag;
+		this.last_modified = last_modified;
+		this.hash = null;
+		this.links = new ArrayList<>();
+	}
+
+	/**
+	 * @return the "ETag" header sent with the page, or null
+	 */
+	public String getEtag()
+	{
+		return etag;
+	}
+
+	/**
+	 * @return the "Last-Modified" header sent with the page, or null
+	 */
+	public String getLastModified()
+	{
+		return last_modified;
+	}
+
+	/**
+	 * @return the HTML of the page, or null if it has been parsed or was not sent again
+	 */
+	public String getHtml()
+	{
+		return html;
+	}
+
+	/**
+	 * @return the hash of the HTML of the page, or null if it has not been parsed
+	 */
+	public String getHash()
+	{
+		return hash;
+	}
+
+	/**
+	 * @return the links found in the page
+	 */
+	public List<String> getLinks()
+	{
+		return links;
+	}
+
+	/**
+	 * Remembers the page's hash and links and lets go of its HTML. Must be
+	 * called before the page is shared with other threads.
+	 *
+	 * @param hash is the hash of the HTML of the page
+	 * @param links is the links found in the page, in order
+	 */
+	public void parsed(String hash, List<String> links)
+	{
+		this.hash = hash;
+		this.links = new ArrayList<>(links);
+		this.html = null;
+	}
+
+	/**
+	 * Hashes HTML so that two fetches of a page can be compared
+	 *
+	 * @param html is the HTML to hash
+	 * @return the SHA-256 hash of the HTML in hexadecimal
+	 */
+	public static String hash(String html)
+	{
+		try
+		{
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			return HexFormat.of().formatHex(digest.digest(html.getBytes(StandardCharsets.UTF_8)));
+		}
+		catch (NoSuchAlgorithmException e)
+		{
+			// Every Java Platform Supports SHA-256
+			throw new IllegalStateException(e);
+		}
+	}
+}
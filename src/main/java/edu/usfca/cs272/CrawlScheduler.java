@@ -0,0 +1,270 @@
+package edu.usfca.cs272;
+
+import java.net.URL;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.function.Consumer;
+
+/**
+ * Schedules the fetches of a web crawl so that each host is treated politely.
+ * Every host has its own queue of URLs, no more than a set number of fetches
+ * run against one host at a time, and fetches to the same host are started a
+ * set delay apart. Fetches run on their own worker threads, separate from the
+ * threads that parse and index the fetched HTML.
+ *
+ * @author Nino Estrada
+ * @author CS 272 Software Development (University of San Francisco)
+ * @version Fall 2022
+ *
+ */
+public class CrawlScheduler
+{
+	/**
+	 * Worker Threads that Fetch the URLs: the Global Fetch Concurrency
+	 */
+	private final WorkQueue fetchers;
+
+	/**
+	 * Maximum Number of Fetches Running at Once Against One Host
+	 */
+	private final int host_limit;
+
+	/**
+	 * Milliseconds Between the Start of Two Fetches to the Same Host
+	 */
+	private final long delay;
+
+	/**
+	 * Fetches a URL and Hands Off the Page: Runs on the Fetch Threads
+	 */
+	private final Consumer<URL> fetch;
+
+	/**
+	 * Mapping of a Host to its Waiting URLs: Also the Lock for all the Hosts
+	 */
+	private final Map<String, Host> hosts;
+
+	/**
+	 * Starts Fetches that Must Wait for their Host's Delay
+	 */
+	private final Timer timer;
+
+	/**
+	 * Number of URLs Scheduled but not yet Handed Off
+	 */
+	private int outstanding;
+
+	/**
+	 * Instantiates the scheduler and starts its fetch threads
+	 *
+	 * @param fetchers is the number of fetches that may run at once across all hosts
+	 * @param host_limit is the number of fetches that may run at once against one host
+	 * @param delay is the milliseconds between the start of two fetches to the same host
+	 * @param fetch fetches each URL and hands off the page, on one of the fetch threads
+	 */
+	public CrawlScheduler(int fetchers, int host_limit, long delay, Consumer<URL> fetch)
+	{
+		this.fetchers = new WorkQueue(fetchers);
+		this.host_limit = host_limit;
+		this.delay = delay;
+		this.fetch = fetch;
+		this.hosts = new HashMap<>();
+		this.timer = new Timer("CrawlScheduler", true);
+		this.outstanding = 0;
+	}
+
+	/**
+	 * Adds a URL to its host's queue. It is fetched as soon as its host allows it.
+	 *
+	 * @param url is the URL to fetch
+	 */
+	public void schedule(URL url)
+	{
+		synchronized (hosts)
+		{
+			Host host = hosts.computeIfAbsent(hostKey(url), key -> new Host());
+
+			host.waiting.add(url);
+			outstanding += 1;
+
+			dispatch(host);
+		}
+	}
+
+	/**
+	 * Provides the key of the host a URL is queued under. The port is part of the
+	 * host, since different servers may share a name, and an implicit port is the
+	 * protocol's default one.
+	 *
+	 * @param url is the URL to find the host of
+	 * @return the protocol, host, and port of the URL as {@code protocol://host:port}
+	 */
+	static String hostKey(URL url)
+	{
+		int port = url.getPort() == -1 ? url.getDefaultPort() : url.getPort();
+		return url.getProtocol() + "://" + url.getHost() + ":" + port;
+	}
+
+	/**
+	 * Starts as many of the host's waiting fetches as the host allows. Must be
+	 * called while holding the lock on the hosts.
+	 *
+	 * @param host is the host to start fetches for
+	 */
+	private void dispatch(Host host)
+	{
+		while (host.active < host_limit && !host.waiting.isEmpty())
+		{
+			URL url = host.waiting.removeFirst();
+			host.active += 1;
+
+			// Fetches to this Host are Spaced Apart by the Delay
+			long now = System.currentTimeMillis();
+			long wait = Math.max(0, host.next_fetch - now);
+			host.next_fetch = Math.max(now, host.next_fetch) + delay;
+
+			FetchTask task = new FetchTask(url, host);
+
+			if (wait == 0)
+			{
+				fetchers.execute(task);
+			}
+			else
+			{
+				// Does Not Hold a Fetch Thread While Waiting
+				timer.schedule(new TimerTask()
+				{
+					@Override
+					public void run()
+					{
+						fetchers.execute(task);
+					}
+				}, wait);
+			}
+		}
+	}
+
+	/**
+	 * Waits until every scheduled URL has been fetched and handed off. URLs
+	 * scheduled by the hand off are waited for as well.
+	 */
+	public void finish()
+	{
+		try
+		{
+			synchronized (hosts)
+			{
+				while (outstanding > 0)
+				{
+					hosts.wait();
+				}
+			}
+		}
+		catch (InterruptedException e)
+		{
+			System.out.println("Crawl scheduler was interrupted while finishing.");
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Checks if there are no URLs waiting to be fetched or handed off
+	 *
+	 * @return true if every scheduled URL has been handed off
+	 */
+	public boolean isIdle()
+	{
+		synchronized (hosts)
+		{
+			return outstanding == 0;
+		}
+	}
+
+	/**
+	 * Waits for the fetches to finish and terminates the fetch threads. The
+	 * scheduler cannot be reused after this call completes.
+	 */
+	public void shutdown()
+	{
+		finish();
+		timer.cancel();
+		fetchers.join();
+	}
+
+	/**
+	 * The URLs waiting for one host and the fetches running against it
+	 */
+	private static class Host
+	{
+		/**
+		 * URLs Waiting for the Host to Allow Another Fetch
+		 */
+		private final ArrayDeque<URL> waiting = new ArrayDeque<>();
+
+		/**
+		 * Number of Fetches Running Against the Host
+		 */
+		private int active = 0;
+
+		/**
+		 * Earliest Time in Milliseconds the Next Fetch to the Host may Start
+		 */
+		private long next_fetch = 0;
+	}
+
+	/**
+	 * Fetches one URL and hands off the HTML, then lets the host start its next fetch
+	 */
+	private class FetchTask implements Runnable
+	{
+		/**
+		 * URL to Fetch
+		 */
+		private final URL url;
+
+		/**
+		 * Host of the URL
+		 */
+		private final Host host;
+
+		/**
+		 * Instantiates the URL and its host
+		 *
+		 * @param url is the URL to fetch
+		 * @param host is the host of the URL
+		 */
+		public FetchTask(URL url, Host host)
+		{
+			this.url = url;
+			this.host = host;
+		}
+
+		@Override
+		public void run()
+		{
+			try
+			{
+				// Parsing and Indexing Happens Elsewhere
+				fetch.accept(url);
+			}
+			finally
+			{
+				synchronized (hosts)
+				{
+					host.active -= 1;
+					dispatch(host);
+
+					outstanding -= 1;
+
+					if (outstanding == 0)
+					{
+						hosts.notifyAll();
+					}
+				}
+			}
+		}
+	}
+}
@@ -4,13 +4,11 @@ import java.io.IOException;
 import java.io.PrintWriter;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.file.Files;
 import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Map;
-import java.util.Set;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -51,6 +49,16 @@ public class Driver
 	 */
 	private static final int DEFAULT_MAX = 1;
 	
+	/**
+	 * Default Checkpoint File if the Path Argument is not Provided
+	 */
+	private static final String DEFAULT_CHECKPOINT_FILE = "crawl.checkpoint";
+	
+	/**
+	 * Default Seconds Between Two Checkpoints if the Interval is not Provided
+	 */
+	private static final int DEFAULT_INTERVAL = 60;
+	
 	/**
 	 * Default Web Sever Port if the Port is not Provided
 	 */
@@ -102,6 +110,21 @@ public class Driver
 		 */
 		int max = DEFAULT_MAX;
 		
+		/**
+		 * Number of URLs to Fetch at Once Across All Hosts
+		 */
+		int fetchers = threads;
+		
+		/**
+		 * Number of URLs to Fetch at Once from One Host
+		 */
+		int host_limit = threads;
+		
+		/**
+		 * Milliseconds Between Two Fetches from the Same Host
+		 */
+		int delay = 0;
+		
 		/**
 		// Default Search Operation for Query
 		 * 
@@ -118,6 +141,21 @@ public class Driver
 		 */
 		int port = 8080;
 		
+		/**
+		 * Server Started Before the Inverted Index is Built, so it Answers Searches While Building
+		 */
+		boolean live = false;
+		
+		/**
+		 * Search Engine Web Server, Once it is Started
+		 */
+		SearchEngineServer server = null;
+		
+		/**
+		 * Worker Threads Shared by Building the Inverted Index, Web Crawling, and Searching
+		 */
+		WorkQueue workers = null;
+		
 		
 		/* -------------------- Parsing -------------------- */
 		
@@ -188,15 +226,113 @@ public class Driver
 			}
 		}
 		
+		/* -------------------- Politeness -------------------- */
+		
+		// Fetching Defaults to the Same Number of Threads as Parsing and Indexing
+		fetchers = parse.getInteger("-fetchers", threads);
+		
+		if (fetchers < 1)
+		{
+			System.out.println("Inputted fewer than 1 fetcher, so default back to " + threads + ".");
+			
+			fetchers = threads;
+		}
+		
+		// No Limit for One Host Unless Provided
+		host_limit = parse.getInteger("-perhost", fetchers);
+		
+		if (host_limit < 1)
+		{
+			System.out.println("Inputted fewer than 1 fetcher per host, so default back to " + fetchers + ".");
+			
+			host_limit = fetchers;
+		}
+		
+		// No Delay Between Fetches Unless Provided
+		delay = Math.max(0, parse.getInteger("-delay", 0));
+		
+		/* -------------------- Server Port -------------------- */
+		
+		if (parse.hasFlag("-server"))
+		{
+			// User did NOT provide a Port Number
+			if (!parse.hasValue("-server"))
+			{
+				System.out.println("Did not specifiy a port, so will default to " + DEFAULT_PORT + ".");
+			}
+			
+			// Port Number
+			port = parse.getInteger("-server", DEFAULT_PORT);
+			
+			// Searches Run Alongside Building the Inverted Index
+			live = parse.hasFlag("-live");
+		}
+		
 		// Checks if Program is using Multithreading, and A Non-Null Seed Implies that we are Web Crawling and using the HTML Flag
-		if (threads > 1 || seed != null)
+		if (threads > 1 || seed != null || live || parse.hasFlag("-segments"))
 		{		
-			// Multithreaded Inverted Index
-			inverted_index = new MTInvertedIndex(threads, max);
+			// Worker Threads Steal Tasks from Each Other Instead of Sharing One Queue
+			boolean steal = parse.hasFlag("-steal");
+			
+			// Bounded Queue: Adding a Task Waits (or Runs it on the Worker) Once this Many are Waiting to Start
+			int capacity = Integer.MAX_VALUE;
+			
+			if (parse.hasFlag("-queue"))
+			{
+				capacity = parse.getInteger("-queue", WorkQueue.DEFAULT_CAPACITY);
+				
+				if (capacity < 1)
+				{
+					System.out.println("Inputted a queue of fewer than 1 task, so default back to " + WorkQueue.DEFAULT_CAPACITY + ".");
+					
+					capacity = WorkQueue.DEFAULT_CAPACITY;
+				}
+			}
+			
+			// Started Once and Shared: Each Phase Waits for Every Task on the Queue, so Phases Run One After Another and Leave the Threads Up for the Next
+			workers = new WorkQueue(threads, steal, capacity);
+			
+			// Lock Guarding the Inverted Index: the Basic Lock Unless Provided, Chosen Before the Inverted Index Starts Using it
+			String lock = parse.getString("-lock", "monitor");
+			ReadWriteLock index_lock = new ReadWriteLock();
+			
+			if (lock.equals("writer"))
+			{
+				index_lock = new WriterPreferringReadWriteLock();
+			}
+			else if (lock.equals("stamped"))
+			{
+				index_lock = new StampedReadWriteLock();
+			}
+			else if (!lock.equals("monitor"))
+			{
+				System.out.println("Unknown lock " + lock + ", so default back to monitor.");
+			}
+			
+			// Segmented Inverted Index: Searches Never Wait for Indexing, so Live Searches Need One
+			if (parse.hasFlag("-segments") || live)
+			{
+				int segment_size = parse.getInteger("-segments", SegmentedInvertedIndex.DEFAULT_SEGMENT_SIZE);
+				
+				if (segment_size < 1)
+				{
+					System.out.println("Inputted fewer than 1 document per segment, so default back to " + SegmentedInvertedIndex.DEFAULT_SEGMENT_SIZE + ".");
+					
+					segment_size = SegmentedInvertedIndex.DEFAULT_SEGMENT_SIZE;
+				}
+				
+				inverted_index = new SegmentedInvertedIndex(workers, index_lock, max, fetchers, host_limit, delay, segment_size);
+			}
+			else
+			{
+				// Multithreaded Inverted Index
+				inverted_index = new MTInvertedIndex(workers, index_lock, max, fetchers, host_limit, delay);
+			}
+			
 			System.out.println("Number of threads: " + threads);
 			
 			// Multithreaded Query Reader
-			query_reader = new MTQueryReader(threads);
+			query_reader = new MTQueryReader(workers);
 			
 		}
 		else
@@ -208,14 +344,26 @@ public class Driver
 			query_reader = new QueryReader();
 		}
 		
+		/* -------------------- Live Server -------------------- */
+		
+		if (live)
+		{
+			try
+			{
+				// Starting up the Server on the Empty Inverted Index: a Resumed Crawl's Index Appears All at Once
+				server = new SearchEngineServer(inverted_index, port);
+			}
+			catch (Exception e) 
+			{
+				System.out.println("Unable to start server.");
+			}
+		}
+		
 		/* -------------------- Parsing File -------------------- */
 		
 		// Value of the Specified Flag
 		Path path = parse.getPath("-text");
 		
-		// Created an ArrayList to Store all the Paths
-		 List<Path> path_list = new ArrayList<>();
-
 		// If the Path is Empty, Output an Empty String
 		if (parse.getString("-text") == null) 
 		{
@@ -223,30 +371,18 @@ public class Driver
 		}
 		else
 		{
+			/* -------------------- Inverted Index Formatting -------------------- */
+			
 			try 
 			{
-				// Loop through all the Current Directories/Files and Adds all the Files into an ArrayList
-				path_list = FileFinder.listSourceFiles(path);
+				// Finds all the Files under the Current Directories/Files and Adds Each to the Inverted Index
+				inverted_index.addText(path);
 			}
 			catch (NoSuchFileException e)
 			{
 				System.out.println("The input was not a file.");
 			}
 			catch (IOException e)
-			{
-				System.out.println("Could not read the attributes of the given path.");
-			}
-		}
-		
-		/* -------------------- Inverted Index Formatting -------------------- */
-		
-		if (!path_list.isEmpty())
-		{
-			try
-			{
-				inverted_index.add(path_list);
-			}
-			catch (IOException e)
 			{
 				System.out.println("Could not read file.");
 			}
@@ -261,8 +397,50 @@ public class Driver
 				// Convert Seed String to a URL
 				URL seed_url = new URL(seed);
 				
+				MTInvertedIndex crawler = (MTInvertedIndex) inverted_index;
+				
+				// Saves the Crawl's Progress so an Interrupted Crawl can be Resumed
+				if (parse.hasFlag("-checkpoint"))
+				{
+					Path checkpoint = parse.getPath("-checkpoint", Path.of(DEFAULT_CHECKPOINT_FILE));
+					
+					crawler.checkpoint(checkpoint, parse.getInteger("-interval", DEFAULT_INTERVAL));
+					
+					// Nothing to Resume or Refresh the 1st Time the Crawl Runs
+					boolean saved = Files.isRegularFile(checkpoint);
+					
+					if (parse.hasFlag("-resume"))
+					{
+						if (saved)
+						{
+							crawler.resume(checkpoint);
+						}
+						else
+						{
+							System.out.println("No saved crawl at \"" + checkpoint + "\" to resume, so will crawl from the seed.");
+						}
+					}
+					// Crawls Again from the Seed, Only Indexing the Pages that Changed
+					else if (parse.hasFlag("-refresh"))
+					{
+						if (saved)
+						{
+							crawler.refresh(checkpoint);
+						}
+						else
+						{
+							System.out.println("No saved crawl at \"" + checkpoint + "\" to refresh, so will crawl from the seed.");
+						}
+					}
+				}
+				// Resuming and Refreshing Both Read the Checkpoint File
+				else if (parse.hasFlag("-resume") || parse.hasFlag("-refresh"))
+				{
+					System.out.println("Did not specifiy a checkpoint file, so will crawl from the seed without resuming or refreshing.");
+				}
+				
 				// Starts Web Crawling from Seed URL
-				((MTInvertedIndex) inverted_index).addHtml(seed_url);
+				crawler.addHtml(seed_url);
 			} 
 			catch (MalformedURLException e) 
 			{
@@ -342,22 +520,25 @@ public class Driver
 			if (query_file == null)
 			{
 				System.out.println("Could NOT calculate because did NOT specifiy where are the queries.");
+				query_reader.shutdown();
+				inverted_index.shutdown();
+				
+				// Terminate the Worker Threads
+				if (workers != null)
+				{
+					workers.join();
+				}
+				
 				return;
 			}
 			
 			// Convert a String to a Path
 			Path query_path = Paths.get(query_file);
 			
-			// Used to Store all the Query Words in a List
-			List<Set<String>> queries;
-			
 			try
 			{
-				// Reads and Steams the Query File to a List of a Set 
-				queries = query_reader.clean(query_path);
-				
-				// Calculates Partial or Exact Search Results 
-				query_reader.search(inverted_index, queries, is_partial);
+				// Reads, Stems, Searches, and Scores the Query File One Line at a Time, All Against One Snapshot
+				query_reader.searchAndScore(inverted_index.snapshot(), query_path, is_partial);
 			}
 			catch (IOException e)
 			{
@@ -381,14 +562,12 @@ public class Driver
 			// Write to the JSON File
 			try (PrintWriter results_writer = new PrintWriter(results_file))
 			{
-				// Word Count
-				Map<String, Integer> word_count = inverted_index.getWordCount();
-				
-				// Calculates the Score of Each Entry
-				query_reader.calculateScore(word_count);
+				// Word Count and Results Read from the Same Snapshot
+				SearchableIndex searched = inverted_index.snapshot();
+				Map<String, Integer> word_count = searched.getWordCount();
 				
 				// Formatting the Writer
-				query_reader.printJson(inverted_index, word_count, results_writer);
+				query_reader.printJson(searched, word_count, results_writer);
 			}
 			catch (IOException e) 
 			{
@@ -396,23 +575,26 @@ public class Driver
 			}	
 		}
 		
+		// Done Searching and Writing the Results
+		query_reader.shutdown();
+		
 		/* -------------------- Server -------------------- */
 		
 		if (parse.hasFlag("-server"))
 		{
-			// User did NOT provide a Port Number
-			if (!parse.hasValue("-server"))
-			{
-				System.out.println("Did not specifiy a port, so will default to " + DEFAULT_PORT + ".");
-			}
-			
-			// Port Number
-			port = parse.getInteger("-server", DEFAULT_PORT);
-			
 			try
 			{
-				// Starting up the Server
-				SearchEngineServer server = new SearchEngineServer(inverted_index, port);
+				// Starting up the Server, Unless it Already Started Before Building the Inverted Index
+				if (!live)
+				{
+					server = new SearchEngineServer(inverted_index, port);
+				}
+				
+				// Wait for the Server to Finish
+				if (server != null)
+				{
+					server.join();
+				}
 			} 
 			catch (InterruptedException e) 
 			{
@@ -423,6 +605,15 @@ public class Driver
 				System.out.println("Unable to start server.");
 			}
 		}
+		
+		// Done with the Inverted Index Once the Server Stops
+		inverted_index.shutdown();
+		
+		// Terminate the Worker Threads Once Every Phase is Done with Them
+		if (workers != null)
+		{
+			workers.join();
+		}
 	}
 }
 
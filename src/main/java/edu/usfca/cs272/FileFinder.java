@@ -1,13 +1,17 @@
 package edu.usfca.cs272;
 
 import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
 import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
 
 
 /**
@@ -30,8 +34,22 @@ public class FileFinder
 	 */
 	public static List<Path> listSourceFiles(Path path) throws NoSuchFileException, IOException
 	{
-		// ArrayList to Store all the Paths
-		List<Path> path_list = new ArrayList<>();
+		return new ArrayList<>(listSourceSizes(path).keySet());
+	}
+	
+	/**
+	 * List All the Source Files under the given path, with the size of each file
+	 * read from the same attributes used to tell files and directories apart
+	 * 
+	 * @param path a text file or a directory
+	 * @return a map from each source file to its size in bytes, in the order the files were found
+	 * @throws NoSuchFileException is the file does not exist
+	 * @throws IOException if the attributes of the file cannot be read
+	 */
+	public static Map<Path, Long> listSourceSizes(Path path) throws NoSuchFileException, IOException
+	{
+		// Map to Store all the Paths and their Sizes
+		Map<Path, Long> path_sizes = new LinkedHashMap<>();
 		
 		
 		// File Attributes - Variables/Methods
@@ -40,20 +58,102 @@ public class FileFinder
 		// If Directory List the Files and Traverse Down Inside each of Those
 		if (attrs.isDirectory())
 		{
-			// Iterate through the Directory - List every File in the Directory
-			DirectoryStream<Path> stream = Files.newDirectoryStream(path);
-							
-			// For Each File Recursively calling ListDirectory
+			// Iterate through the Directory - List every File in the Directory, Closing the Stream After
+			try (DirectoryStream<Path> stream = Files.newDirectoryStream(path))
+			{
+				// For Each File Recursively calling ListDirectory
+				for (Path current_path : stream)
+				{
+					// Check if File is a Text File or Directory
+					if (isTextFile(current_path) || isDirectory(current_path))
+					{
+						// Recursive Call "listSourceSizes", Go Deeper in the Directory
+						Map<Path, Long> sub_sizes = listSourceSizes(current_path);
+						
+						// Add the Source Files in the Sub Directories to the Map 
+						path_sizes.putAll(sub_sizes);
+					}
+					else
+					{
+						// Warning Message
+						System.out.println("Encounter a file did not expect \"" + current_path + "\"");
+					}
+				}
+			}
+		}
+		else
+		{
+			// Add File and its Size to the Map
+			path_sizes.put(path, attrs.size());
+		}
+	
+		return path_sizes;
+	}
+	
+	/**
+	 * Walks the source files under the given path in parallel: each directory is
+	 * listed by its own task on the work queue, and each source file is handed
+	 * off as soon as it is found instead of once the whole tree is listed. Use
+	 * {@link WorkQueue#finish()} to wait for the walk to end.
+	 * 
+	 * @param path a text file or a directory
+	 * @param queue runs a task for each directory
+	 * @param found is given each source file and its size in bytes, possibly by several threads at once
+	 * @throws NoSuchFileException is the file does not exist
+	 * @throws IOException if the attributes of the file cannot be read
+	 */
+	public static void walkSourceFiles(Path path, WorkQueue queue, BiConsumer<Path, Long> found) throws NoSuchFileException, IOException
+	{
+		// File Attributes - Variables/Methods
+		BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class);
+		
+		if (attrs.isDirectory())
+		{
+			queue.execute(() -> walkDirectory(path, queue, found));
+		}
+		else
+		{
+			found.accept(path, attrs.size());
+		}
+	}
+	
+	/**
+	 * Lists one directory for {@link #walkSourceFiles(Path, WorkQueue, BiConsumer)},
+	 * adding a task for each of its sub directories
+	 * 
+	 * @param directory is the directory to list
+	 * @param queue runs a task for each directory
+	 * @param found is given each source file and its size in bytes
+	 */
+	private static void walkDirectory(Path directory, WorkQueue queue, BiConsumer<Path, Long> found)
+	{
+		// Iterate through the Directory - List every File in the Directory, Closing the Stream After
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory))
+		{
 			for (Path current_path : stream)
 			{
-				// Check if File is a Text File or Directory
-				if (isTextFile(current_path) || isDirectory(current_path))
+				// One Read of the Attributes Tells Directories Apart and Gives the Size
+				BasicFileAttributes attrs;
+				
+				try
+				{
+					attrs = Files.readAttributes(current_path, BasicFileAttributes.class);
+				}
+				catch (IOException e)
 				{
-					// Recursive Call "listSourceFiles", Go Deeper in the Directory
-					List<Path> sub_list = listSourceFiles(current_path);
-					
-					// Add the List of the Source Files in the Sub Directories to the List 
-					path_list.addAll(sub_list);
+					// Skip Only this Entry, such as a Dangling Link, and Keep Listing its Siblings
+					System.out.println("Could not read the attributes of \"" + current_path + "\"");
+					continue;
+				}
+				
+				if (attrs.isDirectory())
+				{
+					// Sub Directories are Listed by Other Threads
+					queue.execute(() -> walkDirectory(current_path, queue, found));
+				}
+				else if (isTextFile(current_path))
+				{
+					found.accept(current_path, attrs.size());
 				}
 				else
 				{
@@ -62,13 +162,10 @@ public class FileFinder
 				}
 			}
 		}
-		else
+		catch (IOException | DirectoryIteratorException e)
 		{
-			// Add File to the List
-			path_list.add(path);
+			System.out.println("Could not read the directory \"" + directory + "\"");
 		}
-	
-		return path_list;
 	}
 	
 	/**
@@ -1,5 +1,8 @@
 package edu.usfca.cs272;
 
+import java.net.URL;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.regex.Pattern;
 
 import org.apache.commons.text.StringEscapeUtils;
@@ -143,6 +146,11 @@ public class HtmlCleaner
 		return html.replaceAll(element, "");
 	}
 
+	/**
+	 * Block Elements Removed with their Contents, in the Order they are Removed
+	 */
+	private static final String[] BLOCK_ELEMENTS = { "head", "style", "script", "noscript", "iframe", "svg" };
+
 	/**
 	 * Removes comments and certain block elements from the provided html. The
 	 * block elements removed include: head, style, script, noscript, iframe, and
@@ -150,17 +158,13 @@ public class HtmlCleaner
 	 *
 	 * @param html the HTML to strip comments and block elements from
 	 * @return text clean of any comments and certain HTML block elements
+	 *
+	 * @see #stripComments(String)
+	 * @see #stripElement(String, String)
 	 */
 	public static String stripBlockElements(String html)
 	{
-		html = stripComments(html);
-		html = stripElement(html, "head");
-		html = stripElement(html, "style");
-		html = stripElement(html, "script");
-		html = stripElement(html, "noscript");
-		html = stripElement(html, "iframe");
-		html = stripElement(html, "svg");
-		return html;
+		return new Scanner(html).stripBlocks().toString();
 	}
 
 	/**
@@ -174,10 +178,354 @@ public class HtmlCleaner
 	 */
 	public static String stripHtml(String html)
 	{
-		html = stripBlockElements(html);
-		html = stripTags(html);
-		html = stripEntities(html);
-		return html;
+		return stripHtml(html, null, null);
+	}
+
+	/**
+	 * Removes all HTML tags, certain block elements, and entities from the
+	 * provided text, and adds the links found in the anchor tags outside those
+	 * block elements. Gives the same text as {@link #stripHtml(String)} and the
+	 * same links as {@link LinkFinder#findUrls(URL, CharSequence, Collection)}
+	 * run on the output of {@link #stripBlockElements(String)}, but scans the
+	 * HTML once instead of once per comment, element, and tag pattern.
+	 *
+	 * @param html the HTML to strip tags and elements from
+	 * @param base the URL of the HTML, used to convert relative links to absolute
+	 * @param links the data structure to store found links, or null to skip them
+	 * @return text clean of any HTML tags, certain block elements, and entities
+	 */
+	public static String stripHtml(String html, URL base, Collection<URL> links)
+	{
+		StringBuilder text = new Scanner(html).stripBlocks();
+
+		// Links are Found Before the Tags that Hold them are Removed
+		if (links != null)
+		{
+			LinkFinder.findUrls(base, text, links);
+		}
+
+		stripTags(text);
+
+		// Most Pages have No Entities Left to Look For
+		return text.indexOf("&") < 0 ? text.toString() : stripEntities(text.toString());
+	}
+
+	/**
+	 * Removes HTML tags in place, giving the same text as
+	 * {@link #stripTags(String)}. The text before a tag is never moved, so the
+	 * text kept can be copied over the text already read.
+	 *
+	 * @param text text including HTML tags to remove
+	 */
+	private static void stripTags(StringBuilder text)
+	{
+		// Next Position to Keep a Character
+		int write = 0;
+
+		// Position of a Kept Less Than Sign that may Start a Tag, or -1
+		int open = -1;
+
+		for (int read = 0; read < text.length(); read++)
+		{
+			char c = text.charAt(read);
+
+			if (c == '>' && open >= 0 && write - open > 1)
+			{
+				// Drop the Tag Kept so Far Instead of Keeping the '>'
+				write = open;
+				open = -1;
+				continue;
+			}
+
+			if (c == '<')
+			{
+				open = write;
+			}
+			else if (c == '>')
+			{
+				open = -1;
+			}
+
+			text.setCharAt(write++, c);
+		}
+
+		text.setLength(write);
+	}
+
+	/**
+	 * Removes comments and block elements from HTML in a single scan. Matches
+	 * what the regular expressions in {@link #stripComments(String)} and
+	 * {@link #stripElement(String, String)} match when run one after the other
+	 * in the order of {@link #BLOCK_ELEMENTS}: a closing tag inside a comment or
+	 * an element removed earlier is not seen by the elements removed later.
+	 * Unlike those passes, the pieces of a tag are never joined back together by
+	 * removing a comment or element from the middle of it.
+	 */
+	private static class Scanner
+	{
+		/**
+		 * HTML Being Scanned
+		 */
+		private final String html;
+
+		/**
+		 * Position from which Comments (Index 0) and Each Block Element are Known to Never Close
+		 */
+		private final int[] unclosed;
+
+		/**
+		 * Instantiates the scanner
+		 *
+		 * @param html the HTML to scan
+		 */
+		public Scanner(String html)
+		{
+			this.html = html;
+			this.unclosed = new int[BLOCK_ELEMENTS.length + 1];
+
+			Arrays.fill(unclosed, Integer.MAX_VALUE);
+		}
+
+		/**
+		 * Copies the HTML outside of any comment or block element
+		 *
+		 * @return the text without comments and block elements
+		 */
+		public StringBuilder stripBlocks()
+		{
+			StringBuilder text = new StringBuilder(html.length());
+			int index = 0;
+
+			while (index < html.length())
+			{
+				int open = html.indexOf('<', index);
+
+				if (open < 0)
+				{
+					break;
+				}
+
+				int end = skip(open, BLOCK_ELEMENTS.length);
+
+				// Copy Everything Up to a Removed Block, or Up to and Including a '<' that is Kept
+				text.append(html, index, end < 0 ? open + 1 : open);
+				index = end < 0 ? open + 1 : end;
+			}
+
+			text.append(html, index, html.length());
+			return text;
+		}
+
+		/**
+		 * Finds the end of the comment or block element starting at the index, if
+		 * it is removed before any of the lower block elements
+		 *
+		 * @param index the position of a {@code '<'} in the HTML
+		 * @param lower the position in {@link #BLOCK_ELEMENTS} of the first element not to look for
+		 * @return the position just past the comment or element, or -1 if there is none
+		 */
+		private int skip(int index, int lower)
+		{
+			// Comments Come Before Every Element
+			if (html.startsWith("<!--", index))
+			{
+				return index >= unclosed[0] ? -1 : closed(0, index, html.indexOf("-->", index + 4), 3);
+			}
+
+			int name = index + 1;
+
+			while (name < html.length() && isSpace(html.charAt(name)))
+			{
+				name++;
+			}
+
+			for (int element = 0; element < lower; element++)
+			{
+				if (startsWithIgnoreCase(name, BLOCK_ELEMENTS[element]))
+				{
+					return index >= unclosed[element + 1] ? -1 : skipElement(index, name + BLOCK_ELEMENTS[element].length(), element);
+				}
+			}
+
+			return -1;
+		}
+
+		/**
+		 * Finds the end of a block element whose name ends at the index
+		 *
+		 * @param start the position of the opening tag
+		 * @param index the position just past the name in the opening tag
+		 * @param element the position of the element in {@link #BLOCK_ELEMENTS}
+		 * @return the position just past the closing tag, or -1 if it is not closed
+		 */
+		private int skipElement(int start, int index, int element)
+		{
+			if (index >= html.length())
+			{
+				return -1;
+			}
+
+			// The Name is Followed by the End of the Tag or by Attributes
+			if (html.charAt(index) != '>' && !isSpace(html.charAt(index)))
+			{
+				return -1;
+			}
+
+			index = find(index, element, null);
+
+			if (index < 0)
+			{
+				return closed(element + 1, start, -1, 0);
+			}
+
+			// Closing Tag May Only be Found Past the Opening Tag
+			return closed(element + 1, start, find(index + 1, element, BLOCK_ELEMENTS[element]), 0);
+		}
+
+		/**
+		 * Finds the next {@code '>'} or closing tag, skipping any comment or block element
+		 * that is removed earlier
+		 *
+		 * @param index the position to start looking
+		 * @param element the position in {@link #BLOCK_ELEMENTS} of the element looking
+		 * @param name the name of the closing tag to find, or null to find the next {@code '>'}
+		 * @return the position of the {@code '>'}, or just past the closing tag, or -1 if not found
+		 */
+		private int find(int index, int element, String name)
+		{
+			while (index < html.length())
+			{
+				char c = html.charAt(index);
+
+				if (c == '>' && name == null)
+				{
+					return index;
+				}
+
+				if (c == '<')
+				{
+					int end = skip(index, element);
+
+					if (end >= 0)
+					{
+						index = end;
+						continue;
+					}
+
+					if (name != null)
+					{
+						end = closes(index, name);
+
+						if (end >= 0)
+						{
+							return end;
+						}
+					}
+				}
+
+				index++;
+			}
+
+			return -1;
+		}
+
+		/**
+		 * Checks for a closing tag with the name at the index
+		 *
+		 * @param index the position of a {@code '<'} in the HTML
+		 * @param name the name of the element
+		 * @return the position just past the closing tag, or -1 if there is none
+		 */
+		private int closes(int index, String name)
+		{
+			index++;
+
+			if (index >= html.length() || html.charAt(index) != '/')
+			{
+				return -1;
+			}
+
+			index++;
+
+			while (index < html.length() && isSpace(html.charAt(index)))
+			{
+				index++;
+			}
+
+			if (!startsWithIgnoreCase(index, name))
+			{
+				return -1;
+			}
+
+			index += name.length();
+
+			while (index < html.length() && isSpace(html.charAt(index)))
+			{
+				index++;
+			}
+
+			return index < html.length() && html.charAt(index) == '>' ? index + 1 : -1;
+		}
+
+		/**
+		 * Remembers when a comment or element is not closed, since one starting
+		 * anywhere later cannot be closed either
+		 *
+		 * @param kind 0 for comments, otherwise one past the position of the element
+		 * @param start the position where the comment or element starts
+		 * @param end the position of the end of the comment or element, or -1
+		 * @param length the length of the end
+		 * @return the position just past the end, or -1 if it is not closed
+		 */
+		private int closed(int kind, int start, int end, int length)
+		{
+			if (end < 0)
+			{
+				unclosed[kind] = Math.min(unclosed[kind], start);
+				return -1;
+			}
+
+			return end + length;
+		}
+
+		/**
+		 * Checks for the name at the index, ignoring the case of ASCII letters only
+		 *
+		 * @param index the position in the HTML
+		 * @param name the lowercase name to look for
+		 * @return true if the HTML has the name at the index
+		 */
+		private boolean startsWithIgnoreCase(int index, String name)
+		{
+			if (index + name.length() > html.length())
+			{
+				return false;
+			}
+
+			for (int i = 0; i < name.length(); i++)
+			{
+				char c = html.charAt(index + i);
+
+				// Only ASCII Letters: Matches the Regular Expression Flag
+				if (c != name.charAt(i) && !(c >= 'A' && c <= 'Z' && c + ('a' - 'A') == name.charAt(i)))
+				{
+					return false;
+				}
+			}
+
+			return true;
+		}
+
+		/**
+		 * Checks for whitespace the way the regular expression {@code \s} does
+		 *
+		 * @param c the character to check
+		 * @return true if the character is whitespace
+		 */
+		private static boolean isSpace(char c)
+		{
+			return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+		}
 	}
 }
 
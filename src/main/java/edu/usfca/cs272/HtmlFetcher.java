@@ -1,17 +1,27 @@
 package edu.usfca.cs272;
-import java.io.BufferedReader;
+
+import java.io.FilterInputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.PrintWriter;
+import java.io.InputStream;
 import java.net.MalformedURLException;
-import java.net.Socket;
+import java.net.URISyntaxException;
 import java.net.URL;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodySubscriber;
+import java.net.http.HttpResponse.BodySubscribers;
+import java.net.http.HttpResponse.ResponseInfo;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.*;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
 
 /**
  * A specialized version of {@link HttpsFetcher} that follows redirects and
- * returns HTML content if possible.
+ * returns HTML content if possible. Uses a shared {@link HttpClient} instead of
+ * opening a new socket for every page.
  *
  * @see HttpsFetcher
  *
@@ -19,6 +29,35 @@ import java.util.*;
  * @version Fall 2022
  */
 public class HtmlFetcher {
+	/**
+	 * Shared Client: Pools Keep-Alive Connections per Host and Resumes TLS Sessions
+	 */
+	private static final HttpClient CLIENT = HttpClient.newBuilder()
+			.version(HttpClient.Version.HTTP_1_1)
+			.followRedirects(HttpClient.Redirect.NEVER)
+			.connectTimeout(Duration.ofSeconds(10))
+			.build();
+
+	/**
+	 * Longest Wait for a Response: a Stalled Server Would Otherwise Hold its Fetch Thread Forever
+	 */
+	private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+	/**
+	 * Most Bytes of HTML Read from One Page Unless Told Otherwise
+	 */
+	public static final int DEFAULT_MAX_BYTES = 8 * 1024 * 1024;
+
+	/**
+	 * Compressions Asked for in Every Request: Brotli is Not Supported by the JDK
+	 */
+	private static final String ACCEPT_ENCODING = "gzip, deflate";
+
+	/**
+	 * Largest Body of a Response that is Not HTML Read Just to Reuse the Connection
+	 */
+	private static final int DRAIN_BYTES = 16 * 1024;
+
 	/**
 	 * Returns {@code true} if and only if there is a "Content-Type" header and
 	 * the first value of that header starts with the value "text/html"
@@ -69,74 +108,186 @@ public class HtmlFetcher {
 	}
 
 	/**
-	 * Fetches the resource at the URL using HTTP/1.1 and sockets. If the status
-	 * code is 200 and the content type is HTML, returns the HTML as a single
-	 * string. If the status code is a valid redirect, will follow that redirect
-	 * if the number of redirects is greater than 0. Otherwise, returns
-	 * {@code null}.
+	 * Wraps the body of a response so that it is read decompressed.
+	 *
+	 * @param body the body as sent over the wire
+	 * @param encoding the value of the "Content-Encoding" header
+	 * @return the decompressed body, or {@code null} if the encoding is not supported
+	 * @throws IOException if the body does not start as the encoding says it should
+	 *
+	 * @see #ACCEPT_ENCODING
+	 */
+	private static InputStream decode(InputStream body, String encoding) throws IOException {
+		return switch (encoding.trim().toLowerCase())
+		{
+			case "identity", "" -> body;
+			case "gzip", "x-gzip" -> new GZIPInputStream(body);
+			case "deflate" -> new InflaterInputStream(body);
+			default -> null;
+		};
+	}
+
+	/**
+	 * Chooses how to read the body of a response once its headers arrive. HTML
+	 * from a 200 response is streamed. Small bodies of any other response are
+	 * drained so the connection can be reused, and anything else is abandoned
+	 * without being read.
+	 *
+	 * @param info the status code and headers of the response
+	 * @return the subscriber for the body, whose body is {@code null} if drained
+	 */
+	private static BodySubscriber<InputStream> subscribe(ResponseInfo info) {
+		if (info.statusCode() == 200 && isHtml(info.headers().map()))
+		{
+			return BodySubscribers.ofInputStream();
+		}
+
+		long length = info.headers().firstValueAsLong("Content-Length").orElse(-1);
+
+		if (length >= 0 && length <= DRAIN_BYTES)
+		{
+			return BodySubscribers.replacing(null);
+		}
+
+		// Closed Unread by the Caller: Stops the Transfer
+		return BodySubscribers.ofInputStream();
+	}
+
+	/**
+	 * Fetches the resource at the URL using HTTP/1.1. If the status code is 200
+	 * and the content type is HTML, returns at most the first {@code max_bytes}
+	 * bytes of the HTML as a single string. If the status code is a valid
+	 * redirect, will follow that redirect if the number of redirects is greater
+	 * than 0. Otherwise, returns {@code null}.
+	 *
+	 * Every call shares one {@link HttpClient}, so connections to a host are kept
+	 * alive and reused across pages and redirects, and TLS sessions are resumed
+	 * instead of repeating the full handshake. The body is streamed, so a fetch
+	 * never holds more than {@code max_bytes} of a page, and the body of a
+	 * response that is not HTML is never read. Pages are asked for with gzip or
+	 * deflate compression and decompressed as they are read. A server that does
+	 * not answer within 30 seconds is a failed fetch, so it never holds a fetch
+	 * thread for good.
 	 *
 	 * @param url the url to fetch
 	 * @param redirects the number of times to follow redirects
+	 * @param max_bytes the most bytes of HTML to read, the rest is cut off
 	 * @return the html or {@code null} if unable to fetch the resource or the
 	 *         resource is not html
 	 *
-	 * @see HttpsFetcher#openConnection(URL)
-	 * @see HttpsFetcher#printGetRequest(PrintWriter, URL)
-	 * @see HttpsFetcher#getHeaderFields(BufferedReader)
+	 * @see #fetchPage(URL, int, int, CrawlPage)
+	 */
+	public static String fetch(URL url, int redirects, int max_bytes) {
+		CrawlPage page = fetchPage(url, redirects, max_bytes, null);
+		return page == null ? null : page.getHtml();
+	}
+
+	/**
+	 * Fetches the page at the URL the same way as {@link #fetch(URL, int, int)},
+	 * keeping the validators the server sends with it. If the page was fetched
+	 * before, asks the server to only send it again if it changed since then.
 	 *
-	 * @see String#join(CharSequence, CharSequence...)
+	 * @param url the url to fetch
+	 * @param redirects the number of times to follow redirects
+	 * @param max_bytes the most bytes of HTML to read, the rest is cut off
+	 * @param previous the page as fetched before, or {@code null}
+	 * @return the page, the previous page if the server says it did not change,
+	 *         or {@code null} if unable to fetch the resource or the resource is
+	 *         not html
+	 *
+	 * @see HttpClient#send(HttpRequest, HttpResponse.BodyHandler)
+	 * @see InputStream#readNBytes(int)
 	 *
 	 * @see #isHtml(Map)
-	 * @see #isRedirect(Map)
 	 */
-	public static String fetch(URL url, int redirects) {
-		String html = null;
+	public static CrawlPage fetchPage(URL url, int redirects, int max_bytes, CrawlPage previous) {
+		CrawlPage page = null;
 
-		try (
-				Socket socket = HttpsFetcher.openConnection(url);
-				PrintWriter request = new PrintWriter(socket.getOutputStream());
-				InputStreamReader input = new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8);
-				BufferedReader response = new BufferedReader(input);
-
-		) {
-			HttpsFetcher.printGetRequest(request, url);
+		try
+		{
+			HttpRequest.Builder builder = HttpRequest.newBuilder(url.toURI())
+					.header("Accept-Encoding", ACCEPT_ENCODING)
+					.timeout(REQUEST_TIMEOUT)
+					.GET();
 
-			Map<String, List<String>> headers = HttpsFetcher.getHeaderFields(response);
-			
-			
+			// Server Answers 304 Instead of the Page if it Did Not Change
+			if (previous != null && previous.getEtag() != null)
+			{
+				builder.header("If-None-Match", previous.getEtag());
+			}
 
-			
+			if (previous != null && previous.getLastModified() != null)
+			{
+				builder.header("If-Modified-Since", previous.getLastModified());
+			}
 
-			int status = getStatusCode(headers);
-			boolean is_html = isHtml(headers);
+			HttpResponse<InputStream> response = CLIENT.send(builder.build(), HtmlFetcher::subscribe);
 
+			int status = response.statusCode();
+			Optional<String> location = response.headers().firstValue("Location");
 
-			if (status == 200 && is_html)
+			// Closing Before the End of the Body Aborts the Rest of the Transfer
+			try (InputStream body = response.body())
 			{
-				List<String> content_list = response.lines().toList();
-//				headers.put("Content", content);
-//				List<String> content_list = headers.get("Content");
-
-				if (content_list != null)
+				if (status == 200 && isHtml(response.headers().map()))
 				{
+					String encoding = response.headers().firstValue("Content-Encoding").orElse("identity");
+
+					// Cap Applies to the Decompressed HTML, not the Bytes on the Wire
+					try (InputStream decoded = decode(new CountingInputStream(body), encoding))
+					{
+						if (decoded != null)
+						{
+							byte[] bytes = decoded.readNBytes(max_bytes);
+							CrawlMetrics.addPage(bytes.length);
 
-					html = String.join("\n", content_list);
+							page = new CrawlPage(new String(bytes, StandardCharsets.UTF_8),
+									response.headers().firstValue("ETag").orElse(null),
+									response.headers().firstValue("Last-Modified").orElse(null));
+						}
+					}
+				}
+				else if (status == 304 && previous != null)
+				{
+					CrawlMetrics.addNotModified();
+					page = previous;
+				}
+				else if (status >= 300 && status <= 399 && location.isPresent() && redirects >= 1)
+				{
+					// Location may be Relative to the Requested URL: Validators Only Apply to the URL Asked For
+					URL url_redirect = new URL(url, location.get());
+					page = fetchPage(url_redirect, redirects - 1, max_bytes, null);
+				}
+				else {
+					page = null;
 				}
 			}
-			else if (isRedirect(headers) && redirects >= 1)
-			{
-				URL url_redirect = new URL(headers.get("Location").get(0));
-				html = fetch(url_redirect, redirects - 1);
-			}
-			else {
-				html = null;
-			}
 		}
-		catch (IOException e) {
-			html = null;
+		catch (IOException | URISyntaxException | IllegalArgumentException e) {
+			// Includes HttpTimeoutException: a Server Too Slow to Answer is a Failed Fetch
+			page = null;
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			page = null;
 		}
 
-		return html;
+		return page;
+	}
+
+	/**
+	 * Calls {@link #fetch(URL, int, int)} reading at most
+	 * {@link #DEFAULT_MAX_BYTES} of the HTML.
+	 *
+	 * @param url the url to fetch
+	 * @param redirects the number of times to follow redirects
+	 * @return the html or {@code null} if unable to fetch the resource or the
+	 *         resource is not html
+	 *
+	 * @see #fetch(URL, int, int)
+	 */
+	public static String fetch(URL url, int redirects) {
+		return fetch(url, redirects, DEFAULT_MAX_BYTES);
 	}
 
 	/**
@@ -183,4 +334,51 @@ public class HtmlFetcher {
 	public static String fetch(URL url) {
 		return fetch(url, 0);
 	}
+
+	/**
+	 * Counts the bytes read from the network before they are decompressed
+	 *
+	 * @see CrawlMetrics#addWireBytes(long)
+	 */
+	private static class CountingInputStream extends FilterInputStream {
+		/**
+		 * Instantiates the stream that is counted
+		 *
+		 * @param in the body as sent over the wire
+		 */
+		public CountingInputStream(InputStream in) {
+			super(in);
+		}
+
+		@Override
+		public int read() throws IOException {
+			int read = super.read();
+
+			if (read >= 0)
+			{
+				CrawlMetrics.addWireBytes(1);
+			}
+
+			return read;
+		}
+
+		@Override
+		public int read(byte[] bytes, int offset, int length) throws IOException {
+			int read = super.read(bytes, offset, length);
+
+			if (read > 0)
+			{
+				CrawlMetrics.addWireBytes(read);
+			}
+
+			return read;
+		}
+
+		@Override
+		public long skip(long length) throws IOException {
+			long skipped = super.skip(length);
+			CrawlMetrics.addWireBytes(skipped);
+			return skipped;
+		}
+	}
 }
@@ -2,10 +2,13 @@ package edu.usfca.cs272;
 
 import java.io.IOException;
 import java.io.Writer;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -19,7 +22,7 @@ import java.util.TreeMap;
  * @version Fall 2022
  * 
  */
-public class InvertedIndex 
+public class InvertedIndex implements SearchableIndex
 {
 	/**
 	 * Stores the Mapping from Words to the Documents and Positions
@@ -31,13 +34,44 @@ public class InvertedIndex
 	 */
 	protected WordCount word_count;
 	
+	/**
+	 * Stores the Mapping from Documents to their Words, so a Document can be Removed without Checking Every Word:
+	 * Null if the Inverted Index is Only Built to be Merged into Another
+	 */
+	protected HashMap<String, HashSet<String>> document_words;
+	
 	/**
 	 * Instantiates the Inverted Index and Word Count
 	 */
 	public InvertedIndex()
+	{
+		this(true);
+	}
+	
+	/**
+	 * Instantiates the Inverted Index and Word Count, with or without the
+	 * mapping from documents to their words. An inverted index that is only
+	 * built to be merged into another never removes documents, so it does not
+	 * need the mapping; removing a document from it checks every word instead.
+	 * 
+	 * @param forward is true to keep the words of each document, so documents can be removed quickly
+	 */
+	public InvertedIndex(boolean forward)
 	{
 		inverted_index = new TreeMap<String, TreeMap<String, ArrayList<Integer>>>();
 		word_count = new WordCount();
+		document_words = forward ? new HashMap<String, HashSet<String>>() : null;
+	}
+	
+	/**
+	 * Provides a view of the inverted index for one search. Only searched once
+	 * the inverted index is built, so it is the inverted index itself.
+	 * 
+	 * @return a read only view of the inverted index
+	 */
+	public SearchableIndex snapshot()
+	{
+		return this;
 	}
 	
 	/**
@@ -82,6 +116,18 @@ public class InvertedIndex
 	}
 	
 	
+	/**
+	 * Provides a view only copy of the documents in the inverted index
+	 * 
+	 * @return a set of the documents with at least one word
+	 */
+	public Set<String> getDocuments()
+	{
+		// Every Document with a Word is Counted
+		return word_count.getWordCount().keySet();
+	}
+	
+	
 	/**
 	 * Provides the size of the inverted index
 	 * 
@@ -167,6 +213,12 @@ public class InvertedIndex
 		// Counts Words in a Specific Document
 		word_count.increment(document);
 		
+		// Remember the Document Has this Word
+		if (document_words != null)
+		{
+			document_words.computeIfAbsent(document, key -> new HashSet<String>()).add(word);
+		}
+		
 		// Grabs the HashMap which is the Value from the inverted index: Document, Positions
 		Map<String, ArrayList<Integer>> values = inverted_index.get(word);
 
@@ -218,6 +270,111 @@ public class InvertedIndex
 		}
 	}
 	
+	/**
+	 * Adds the files to the inverted index. The sizes are only used to split the
+	 * work up, so this inverted index adds the files in order.
+	 * 
+	 * @param path_sizes is a map from each file to its size in bytes
+	 * @throws IOException if there is an IO error
+	 */
+	public void add(Map<Path, Long> path_sizes) throws IOException
+	{
+		add(new ArrayList<>(path_sizes.keySet()));
+	}
+	
+	/**
+	 * Adds all the source files under the path to the inverted index
+	 * 
+	 * @param path a text file or a directory
+	 * @throws NoSuchFileException if the path does not exist
+	 * @throws IOException if there is an IO error
+	 */
+	public void addText(Path path) throws NoSuchFileException, IOException
+	{
+		add(FileFinder.listSourceSizes(path));
+	}
+	
+	/**
+	 * Releases any threads used by the inverted index. The single threaded
+	 * inverted index does not use any, so there is nothing to release.
+	 */
+	public void shutdown()
+	{
+	}
+	
+	/**
+	 * Removes a document and all of its positions from the inverted index. Words
+	 * left without any documents are removed as well.
+	 * 
+	 * @param document is the name of the document to remove
+	 * @return true if the document was in the inverted index
+	 */
+	public boolean remove(String document)
+	{
+		// Only the Document's Own Words have to be Checked
+		HashSet<String> words = document_words == null ? findWords(document) : document_words.remove(document);
+		
+		word_count.remove(document);
+		
+		if (words == null)
+		{
+			return false;
+		}
+		
+		for (String word : words)
+		{
+			TreeMap<String, ArrayList<Integer>> documents = inverted_index.get(word);
+			
+			documents.remove(document);
+			
+			if (documents.isEmpty())
+			{
+				inverted_index.remove(word);
+			}
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Finds the words of a document by checking every word, for an inverted
+	 * index without the mapping from documents to their words
+	 * 
+	 * @param document is the name of the document
+	 * @return the words of the document, or null if the document is not in the inverted index
+	 */
+	private HashSet<String> findWords(String document)
+	{
+		HashSet<String> words = new HashSet<String>();
+		
+		for (Map.Entry<String, TreeMap<String, ArrayList<Integer>>> word : inverted_index.entrySet())
+		{
+			if (word.getValue().containsKey(document))
+			{
+				words.add(word.getKey());
+			}
+		}
+		
+		return words.isEmpty() ? null : words;
+	}
+	
+	/**
+	 * Replaces the words of 1 entire document, such as after the document
+	 * changed. Words only the old version had are removed.
+	 * 
+	 * @param document is the name of the document to replace
+	 * @param list is the new words of the document, in order
+	 * @return true if the document was in the inverted index before
+	 */
+	public boolean replace(String document, ArrayList<String> list)
+	{
+		boolean removed = remove(document);
+		
+		add(list, document);
+		
+		return removed;
+	}
+	
 	/**
 	 * Checks if the word is a key in the inverted index
 	 * 
@@ -19,6 +19,21 @@ import java.util.regex.Pattern;
  */
 public class LinkFinder
 {
+	/**
+	 * Anchor Tag with an HREF Attribute: the Link is the 1st Group
+	 */
+	private static final Pattern LINK = Pattern.compile("\\<\\s*a[^\\>]+href\\s*=\\s*\\\"([^\"]+)", Pattern.CASE_INSENSITIVE);
+
+	/**
+	 * Punctuation Never Encoded in a Path
+	 */
+	private static final String PATH_CHARACTERS = "-_.!~*'()/@:&=+$,;";
+
+	/**
+	 * Punctuation Never Encoded in a Query
+	 */
+	private static final String QUERY_CHARACTERS = "-_.!~*'()/@:&=+$,;?[]";
+
 	/**
 	 * Returns a list of all the valid HTTP(S) URLs found in the HREF attribute
 	 * of the anchor tags in the provided HTML. The URLs will be converted to
@@ -39,13 +54,9 @@ public class LinkFinder
 	 * @see #normalize(URL)
 	 * @see #isHttp(URL)
 	 */
-	public static void findUrls(URL base, String html, Collection<URL> urls)
+	public static void findUrls(URL base, CharSequence html, Collection<URL> urls)
 	{
-		String regex = "\\<\\s*a[^\\>]+href\\s*=\\s*\\\"([^\"]+)";
-
-		Pattern pattern = Pattern.compile(regex, Pattern.CASE_INSENSITIVE);
-
-		Matcher matcher = pattern.matcher(html);
+		Matcher matcher = LINK.matcher(html);
 
 		int index = 0;
 
@@ -56,17 +67,18 @@ public class LinkFinder
 
 			try
 			{
-				URL website = normalize(new URL(base, url));
+				URL website = new URL(base, url);
 
 				// Add Websites to Collection
 				if (isHttp(website))
 				{
-					urls.add(website);
+					urls.add(normalize(website));
 				}
 			}
 			catch (MalformedURLException | URISyntaxException e)
 			{
-				System.out.println("invalid url");
+				// Worker Threads Count the Failures Instead of Printing Each One
+				CrawlMetrics.addInvalidLink();
 			}
 
 			// Don't find same Match
@@ -82,7 +94,7 @@ public class LinkFinder
 	 * @param html the raw HTML associated with the base URL
 	 * @return list of all valid HTTP(S) URLs in the order they were found
 	 *
-	 * @see #findUrls(URL, String, Collection)
+	 * @see #findUrls(URL, CharSequence, Collection)
 	 */
 	public static ArrayList<URL> listUrls(URL base, String html)
 	{
@@ -99,7 +111,7 @@ public class LinkFinder
 	 * @param html the raw HTML associated with the base URL
 	 * @return list of all valid HTTP(S) URLs in the order they were found
 	 *
-	 * @see #findUrls(URL, String, Collection)
+	 * @see #findUrls(URL, CharSequence, Collection)
 	 */
 	public static HashSet<URL> uniqueUrls(URL base, String html)
 	{
@@ -110,7 +122,8 @@ public class LinkFinder
 
 	/**
 	 * Removes the fragment component of a URL (if present), and properly encodes
-	 * the query string (if necessary).
+	 * the query string (if necessary). Most URLs need no encoding, so those are
+	 * normalized as a plain string and only the rest go through {@link URI}.
 	 *
 	 * @param url the URL to normalize
 	 * @return normalized URL
@@ -119,8 +132,144 @@ public class LinkFinder
 	 */
 	public static URL normalize(URL url) throws MalformedURLException, URISyntaxException
 	{
-		return new URI(url.getProtocol(), url.getUserInfo(), url.getHost(),
-				url.getPort(), url.getPath(), url.getQuery(), null).toURL();
+		String normal = normalizePlain(url);
+
+		if (normal == null)
+		{
+			return new URI(url.getProtocol(), url.getUserInfo(), url.getHost(),
+					url.getPort(), url.getPath(), url.getQuery(), null).toURL();
+		}
+
+		// Already Normalized Unless it had a Fragment
+		return normal.equals(url.toExternalForm()) ? url : new URL(normal);
+	}
+
+	/**
+	 * Builds the string {@link URI} would build for the URL without its fragment,
+	 * if no part of the URL needs to be encoded and the host is certainly valid.
+	 *
+	 * @param url the URL to normalize
+	 * @return the normalized URL as a string, or null if it needs {@link URI}
+	 */
+	private static String normalizePlain(URL url)
+	{
+		String host = url.getHost();
+		String path = url.getPath();
+		String query = url.getQuery();
+
+		if (url.getUserInfo() != null || !isPlainHost(host) || !isPlain(path, PATH_CHARACTERS)
+				|| (query != null && !isPlain(query, QUERY_CHARACTERS)))
+		{
+			return null;
+		}
+
+		StringBuilder normal = new StringBuilder(url.getProtocol()).append("://").append(host);
+
+		if (url.getPort() != -1)
+		{
+			normal.append(':').append(url.getPort());
+		}
+
+		normal.append(path);
+
+		if (query != null)
+		{
+			normal.append('?').append(query);
+		}
+
+		return normal.toString();
+	}
+
+	/**
+	 * Checks that the text only has characters that are never encoded. The
+	 * percent sign is always encoded by {@link URI}, so it is not plain.
+	 *
+	 * @param text the part of the URL to check
+	 * @param allowed the punctuation allowed along with ASCII letters and digits
+	 * @return true if no character in the text needs encoding
+	 */
+	private static boolean isPlain(String text, String allowed)
+	{
+		for (int i = 0; i < text.length(); i++)
+		{
+			char c = text.charAt(i);
+
+			if (!isAlphanumeric(c) && allowed.indexOf(c) < 0)
+			{
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Checks that the host is a host name or IPv4 address that {@link URI} will
+	 * certainly accept. Hosts that may still be valid, such as IPv6 addresses,
+	 * are not plain and are left for {@link URI} to check.
+	 *
+	 * @param host the host of the URL
+	 * @return true if the host is certainly valid
+	 */
+	private static boolean isPlainHost(String host)
+	{
+		if (host.isEmpty())
+		{
+			return false;
+		}
+
+		String[] labels = host.split("\\.", -1);
+		boolean address = labels.length == 4;
+
+		for (String label : labels)
+		{
+			// Labels are Letters, Digits, and Inner Dashes
+			if (label.isEmpty() || label.charAt(0) == '-' || label.charAt(label.length() - 1) == '-' || !isPlain(label, "-"))
+			{
+				return false;
+			}
+
+			address = address && isAddressPart(label);
+		}
+
+		// Name with More than One Label Must End with a Label Starting with a Letter
+		char top = labels[labels.length - 1].charAt(0);
+		return address || labels.length == 1 || (top >= 'a' && top <= 'z') || (top >= 'A' && top <= 'Z');
+	}
+
+	/**
+	 * Checks that the label is a number from 0 to 255 without extra leading zeros
+	 *
+	 * @param label the label of the host
+	 * @return true if the label can be part of an IPv4 address
+	 */
+	private static boolean isAddressPart(String label)
+	{
+		if (label.length() > 3 || (label.length() > 1 && label.charAt(0) == '0'))
+		{
+			return false;
+		}
+
+		for (int i = 0; i < label.length(); i++)
+		{
+			if (label.charAt(i) < '0' || label.charAt(i) > '9')
+			{
+				return false;
+			}
+		}
+
+		return Integer.parseInt(label) <= 255;
+	}
+
+	/**
+	 * Checks for an ASCII letter or digit
+	 *
+	 * @param c the character to check
+	 * @return true if the character is an ASCII letter or digit
+	 */
+	private static boolean isAlphanumeric(char c)
+	{
+		return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9');
 	}
 
 	/**
@@ -0,0 +1,184 @@
+package edu.usfca.cs272;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Counts how contended a read/write lock is: how often and how long threads
+ * waited to acquire it, and how many threads were waiting at once. Only
+ * acquisitions that had to wait are timed, so an uncontended lock costs
+ * nothing extra.
+ *
+ * @author Nino Estrada
+ * @author CS 272 Software Development (University of San Francisco)
+ * @version Fall 2022
+ *
+ */
+public class LockMetrics
+{
+	/** Logger used for this class. */
+	private static final Logger log = LogManager.getLogger();
+
+	/**
+	 * Name of the Lock in the Report
+	 */
+	private final String name;
+
+	/**
+	 * Number of Read Locks that had to Wait
+	 */
+	private final LongAdder read_waits;
+
+	/**
+	 * Number of Write Locks that had to Wait
+	 */
+	private final LongAdder write_waits;
+
+	/**
+	 * Nanoseconds Spent Waiting for Read Locks
+	 */
+	private final LongAdder read_wait_nanos;
+
+	/**
+	 * Nanoseconds Spent Waiting for Write Locks
+	 */
+	private final LongAdder write_wait_nanos;
+
+	/**
+	 * Number of Threads Waiting for the Lock Right Now
+	 */
+	private final AtomicInteger queue;
+
+	/**
+	 * Most Threads Ever Waiting for the Lock at Once
+	 */
+	private final AtomicInteger max_queue;
+
+	/**
+	 * Instantiates the counters
+	 *
+	 * @param name is the name of the lock in the report
+	 */
+	public LockMetrics(String name)
+	{
+		this.name = name;
+		read_waits = new LongAdder();
+		write_waits = new LongAdder();
+		read_wait_nanos = new LongAdder();
+		write_wait_nanos = new LongAdder();
+		queue = new AtomicInteger();
+		max_queue = new AtomicInteger();
+	}
+
+	/**
+	 * Counts one more thread waiting for the lock
+	 *
+	 * @return the time the thread started waiting, to pass to {@link #stopWaiting(long, boolean)}
+	 */
+	public long startWaiting()
+	{
+		max_queue.accumulateAndGet(queue.incrementAndGet(), Math::max);
+
+		return System.nanoTime();
+	}
+
+	/**
+	 * Counts one less thread waiting for the lock, and how long it waited
+	 *
+	 * @param start is the time returned by {@link #startWaiting()}
+	 * @param write is true if the thread waited for the write lock
+	 */
+	public void stopWaiting(long start, boolean write)
+	{
+		long waited = System.nanoTime() - start;
+
+		queue.decrementAndGet();
+
+		if (write)
+		{
+			write_waits.increment();
+			write_wait_nanos.add(waited);
+		}
+		else
+		{
+			read_waits.increment();
+			read_wait_nanos.add(waited);
+		}
+	}
+
+	/**
+	 * Provides the number of read locks that had to wait
+	 *
+	 * @return the number of contended read locks
+	 */
+	public long getReadWaits()
+	{
+		return read_waits.sum();
+	}
+
+	/**
+	 * Provides the number of write locks that had to wait
+	 *
+	 * @return the number of contended write locks
+	 */
+	public long getWriteWaits()
+	{
+		return write_waits.sum();
+	}
+
+	/**
+	 * Provides the time spent waiting for read locks
+	 *
+	 * @return the nanoseconds spent waiting
+	 */
+	public long getReadWaitNanos()
+	{
+		return read_wait_nanos.sum();
+	}
+
+	/**
+	 * Provides the time spent waiting for write locks
+	 *
+	 * @return the nanoseconds spent waiting
+	 */
+	public long getWriteWaitNanos()
+	{
+		return write_wait_nanos.sum();
+	}
+
+	/**
+	 * Provides the number of threads waiting for the lock right now
+	 *
+	 * @return the length of the queue
+	 */
+	public int getQueueLength()
+	{
+		return queue.get();
+	}
+
+	/**
+	 * Provides the most threads ever waiting for the lock at once
+	 *
+	 * @return the longest the queue has been
+	 */
+	public int getMaxQueueLength()
+	{
+		return max_queue.get();
+	}
+
+	/**
+	 * Logs the counters collected so far
+	 */
+	public void report()
+	{
+		log.debug("{} lock: {} reads waited {} ms, {} writes waited {} ms, at most {} threads waiting.",
+				name,
+				getReadWaits(), TimeUnit.NANOSECONDS.toMillis(getReadWaitNanos()),
+				getWriteWaits(), TimeUnit.NANOSECONDS.toMillis(getWriteWaitNanos()),
+				getMaxQueueLength());
+	}
+}
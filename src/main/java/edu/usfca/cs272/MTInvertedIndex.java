@@ -1,14 +1,26 @@
 package edu.usfca.cs272;
 
 import java.io.IOException;
+import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.Timer;
+import java.util.TimerTask;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 
 /**
  * @author Nino Estrada
@@ -18,31 +30,88 @@ import java.util.TreeSet;
  */
 public class MTInvertedIndex extends InvertedIndex 
 {
+	/** Logger used for this class. */
+	private static final Logger log = LogManager.getLogger();
 	
 	/**
-	 * Worker Threads
+	 * Worker Threads: Possibly Shared with Other Phases, so Only Waited on, Never Shut Down Here
 	 */
 	WorkQueue multithreading;
 	
+	/**
+	 * Whether the Work Queue was Started by this Inverted Index and Should be Shut Down with it
+	 */
+	boolean owns_queue;
+	
 	/**
 	 * Lock Object Controls Access of the Shared Resources Among the Worker Threads
 	 */
-	ReadWriteLock lock;
+	final ReadWriteLock lock;
+	
+	/**
+	 * Keep Track of URL's Attempted to Fetch and the Total Number of URLs to Crawl
+	 */
+	CrawlFrontier frontier;
+	
+	/**
+	 * Fetches the URLs while Web Crawling, Politely for Each Host
+	 */
+	CrawlScheduler scheduler;
+	
+	/**
+	 * Number of URLs Fetched at Once Across All Hosts
+	 */
+	int fetchers;
+	
+	/**
+	 * Number of URLs Fetched at Once from One Host
+	 */
+	int host_limit;
+	
+	/**
+	 * Milliseconds Between Two Fetches from the Same Host
+	 */
+	long delay;
+	
+	/**
+	 * Fetched Pages Allowed to Wait for the Worker Threads: Bounds the HTML Held in Memory
+	 */
+	Semaphore parse_slots;
+	
+	/**
+	 * Number of Fetched Pages that may Wait for the Worker Threads
+	 */
+	int parse_limit;
+	
+	/**
+	 * What was Fetched from Each Crawled URL: Only Kept when the Crawl's Progress is Saved
+	 */
+	Map<String, CrawlPage> pages;
+	
+	/**
+	 * File the Crawl's Progress is Saved to, or Null if it is Not Saved
+	 */
+	Path checkpoint_path;
+	
+	/**
+	 * Milliseconds Between Two Saves of the Crawl's Progress
+	 */
+	long checkpoint_interval;
 	
 	/**
-	 * Total Number of URLs to Crawl
+	 * Number of Fetched Pages per Worker Thread that may Wait to be Parsed
 	 */
-	int max_crawl;
+	private static final int PAGES_PER_THREAD = 4;
 	
 	/**
-	 * Keep Track of Current URLs Crawled
+	 * Most Bytes of Small Files Indexed Together by One Task
 	 */
-	int total_crawl;
+	public static final long BATCH_BYTES = 64 * 1024;
 	
 	/**
-	 * Keep Track of URL's Attempted to Fetch
+	 * Number of Tasks per Worker Thread the Files are Split into, so Small Inputs Still Keep Every Thread Busy
 	 */
-	List<URL> url_list = new ArrayList<>();
+	private static final int BATCHES_PER_THREAD = 4;
 	
 	/**
 	 * Instantiates the work queue and lock object
@@ -52,10 +121,99 @@ public class MTInvertedIndex extends InvertedIndex
 	 */
 	public MTInvertedIndex(int threads, int max_crawl)
 	{
-		multithreading = new WorkQueue(threads);
-		lock = new ReadWriteLock();
-		this.max_crawl = max_crawl;
-		total_crawl = 0;
+		this(threads, max_crawl, threads, threads, 0);
+	}
+	
+	/**
+	 * Instantiates the work queue and lock object, with separate limits for fetching while web crawling
+	 * 
+	 * @param threads is the number of worker threads parsing and indexing
+	 * @param max_crawl maximum URLs to fetch
+	 * @param fetchers is the number of URLs fetched at once across all hosts
+	 * @param host_limit is the number of URLs fetched at once from one host
+	 * @param delay is the milliseconds between two fetches from the same host
+	 */
+	public MTInvertedIndex(int threads, int max_crawl, int fetchers, int host_limit, long delay)
+	{
+		this(new WorkQueue(threads), max_crawl, fetchers, host_limit, delay);
+		owns_queue = true;
+	}
+	
+	/**
+	 * Instantiates the lock object, parsing and indexing with the given work queue
+	 * 
+	 * @param multithreading is the work queue parsing and indexing
+	 * @param max_crawl maximum URLs to fetch
+	 * @param fetchers is the number of URLs fetched at once across all hosts
+	 * @param host_limit is the number of URLs fetched at once from one host
+	 * @param delay is the milliseconds between two fetches from the same host
+	 */
+	public MTInvertedIndex(WorkQueue multithreading, int max_crawl, int fetchers, int host_limit, long delay)
+	{
+		this(multithreading, new ReadWriteLock(), max_crawl, fetchers, host_limit, delay);
+	}
+	
+	/**
+	 * Instantiates the inverted index guarded by the given lock, such as one that
+	 * prefers writers or allows optimistic reads, parsing and indexing with the
+	 * given work queue
+	 * 
+	 * @param multithreading is the work queue parsing and indexing
+	 * @param lock is the lock guarding the inverted index
+	 * @param max_crawl maximum URLs to fetch
+	 * @param fetchers is the number of URLs fetched at once across all hosts
+	 * @param host_limit is the number of URLs fetched at once from one host
+	 * @param delay is the milliseconds between two fetches from the same host
+	 */
+	public MTInvertedIndex(WorkQueue multithreading, ReadWriteLock lock, int max_crawl, int fetchers, int host_limit, long delay)
+	{
+		this.multithreading = multithreading;
+		this.lock = lock;
+		frontier = new CrawlFrontier(max_crawl);
+		this.fetchers = fetchers;
+		this.host_limit = host_limit;
+		this.delay = delay;
+		pages = new ConcurrentHashMap<>();
+		parse_limit = multithreading.size() * PAGES_PER_THREAD;
+		
+		// Fair so Saving a Checkpoint, which Takes Every Slot, is Not Starved by the Fetchers
+		parse_slots = new Semaphore(parse_limit, true);
+	}
+	
+	/**
+	 * Provides the size of the inverted index, without blocking writers if the lock allows optimistic reads
+	 * 
+	 * @return the size of the inverted index
+	 */
+	@Override
+	public int size()
+	{
+		return lock.optimisticRead(super::size);
+	}
+	
+	/**
+	 * Provides the size of the inner map. Always takes the read lock: finding the
+	 * word walks the tree a writer may be rebalancing, which an optimistic read
+	 * could follow in a loop that never returns to be validated.
+	 * 
+	 * @param word is a key of the inverted index
+	 * @return the size of the inner map
+	 */
+	@Override
+	public int size(String word)
+	{
+		// Acquire the Read Lock
+		lock.read().lock();
+		
+		try
+		{
+			return super.size(word);
+		}
+		finally
+		{
+			// Release the Read Lock
+			lock.read().unlock();
+		}
 	}
 	
 	/**
@@ -90,15 +248,194 @@ public class MTInvertedIndex extends InvertedIndex
 	@Override
 	public void add(List<Path> path_list) throws IOException
 	{
+		// Map to Store all the Paths and their Sizes
+		Map<Path, Long> path_sizes = new LinkedHashMap<>();
+		
 		// Loop through the List of Paths
 		for (Path p : path_list) 
 		{
-			// Adds a Work (or Task) Request to the Queue
-			multithreading.execute(new Task(p));
+			long size = 0;
+			
+			try
+			{
+				size = Files.size(p);
+			}
+			catch (IOException e)
+			{
+				// Unreadable Files are Sized 0 and Reported by the Task
+			}
+			
+			path_sizes.put(p, size);
+		}
+		
+		add(path_sizes);
+	}
+	
+	/**
+	 * Groups the files into tasks by their total size, so each task indexes
+	 * several small files into one thread inverted index and merges it once,
+	 * then waits for the tasks to finish
+	 * 
+	 * @param path_sizes is a map from each file to its size in bytes
+	 * @throws IOException if there is an IO error
+	 */
+	@Override
+	public void add(Map<Path, Long> path_sizes) throws IOException
+	{
+		// Total Bytes of all the Files
+		long total = 0;
+		
+		for (long size : path_sizes.values())
+		{
+			total += size;
+		}
+		
+		long target = batchTarget(total);
+		
+		List<Task> tasks = new ArrayList<>();
+		List<Path> batch = new ArrayList<>();
+		long batch_bytes = 0;
+		
+		// Loop through the Paths: a File Larger than the Target is a Batch on its Own
+		for (Map.Entry<Path, Long> entry : path_sizes.entrySet())
+		{
+			batch.add(entry.getKey());
+			batch_bytes += entry.getValue();
+			
+			if (batch_bytes >= target)
+			{
+				tasks.add(new Task(batch));
+				batch = new ArrayList<>();
+				batch_bytes = 0;
+			}
+		}
+		
+		if (!batch.isEmpty())
+		{
+			tasks.add(new Task(batch));
 		}
 		
-		// Wait for Work Queue's to Finish
-		multithreading.join();
+		// Adds Every Work (or Task) Request to the Queue at Once
+		multithreading.executeAll(tasks);
+		
+		// Wait for Every Task on the Work Queue, Not Only These: the Worker Threads Stay Up for the Next Phase
+		multithreading.finish();
+		lock.report();
+	}
+	
+	/**
+	 * Walks the source files under the path on the worker threads, indexing
+	 * batches of the files found while the rest of the tree is still being
+	 * walked, then waits for the tasks to finish
+	 * 
+	 * @param path a text file or a directory
+	 * @throws NoSuchFileException if the path does not exist
+	 * @throws IOException if there is an IO error
+	 */
+	@Override
+	public void addText(Path path) throws NoSuchFileException, IOException
+	{
+		TextBatcher batcher = new TextBatcher();
+		
+		FileFinder.walkSourceFiles(path, multithreading, batcher::add);
+		
+		// Wait for the Walk, and the Batches Already Started, then Index the Last Batch
+		multithreading.finish();
+		batcher.flush();
+		
+		// Wait for Every Task on the Work Queue, Not Only These: the Worker Threads Stay Up for the Next Phase
+		multithreading.finish();
+		lock.report();
+	}
+	
+	/**
+	 * Provides the most bytes of files indexed together by one task: smaller
+	 * batches for smaller inputs, so every worker thread gets some, but never
+	 * larger than {@link #BATCH_BYTES}
+	 * 
+	 * @param total is the total bytes of the files found so far
+	 * @return the bytes a batch is filled to before it is indexed
+	 */
+	private long batchTarget(long total)
+	{
+		return Math.max(1, Math.min(BATCH_BYTES, total / Math.max(1, multithreading.size() * BATCHES_PER_THREAD)));
+	}
+	
+	/**
+	 * Groups the files found while walking the source files into tasks by their
+	 * total size. The first files found go out in small batches so indexing
+	 * starts right away, and batches grow as more of the tree is found.
+	 */
+	private class TextBatcher
+	{
+		/**
+		 * Files Waiting to be Indexed Together
+		 */
+		private List<Path> batch = new ArrayList<>();
+		
+		/**
+		 * Total Bytes of the Files Waiting
+		 */
+		private long batch_bytes;
+		
+		/**
+		 * Total Bytes of all the Files Found so Far
+		 */
+		private long found_bytes;
+		
+		/**
+		 * Adds a file found to the current batch, indexing the batch once it is full
+		 * 
+		 * @param path is the file found
+		 * @param size is the file's size in bytes
+		 */
+		public void add(Path path, long size)
+		{
+			Task task = null;
+			
+			synchronized (this)
+			{
+				batch.add(path);
+				batch_bytes += size;
+				found_bytes += size;
+				
+				if (batch_bytes >= batchTarget(found_bytes))
+				{
+					task = new Task(batch);
+					batch = new ArrayList<>();
+					batch_bytes = 0;
+				}
+			}
+			
+			// Added Outside the Lock: a Full Queue may Run the Task on this Thread
+			if (task != null)
+			{
+				multithreading.execute(task);
+			}
+		}
+		
+		/**
+		 * Indexes the files still waiting, once no more will be found
+		 */
+		public void flush()
+		{
+			Task task = null;
+			
+			synchronized (this)
+			{
+				if (!batch.isEmpty())
+				{
+					task = new Task(batch);
+					batch = new ArrayList<>();
+					batch_bytes = 0;
+				}
+			}
+			
+			if (task != null)
+			{
+				multithreading.execute(task);
+			}
+		}
 	}
 	
 	/**
@@ -109,28 +446,280 @@ public class MTInvertedIndex extends InvertedIndex
 	 */
 	public void addHtml(URL seed) throws IOException
 	{
-		// Adds a Work (or Task) Request to the Queue
-		multithreading.execute(new HtmlTask(seed));
+		CrawlMetrics.reset();
+		
+		// URLs a Resumed Crawl had Not Finished
+		List<String> resumed = frontier.getPending();
 		
-		// Initialized the Total Crawl: Seed is the 1st URL to Begin Crawling
-		total_crawl = 1;
+		// Fetched HTML is Parsed and Indexed by the Worker Threads: Fetchers Wait if Too Many Pages are Waiting
+		scheduler = new CrawlScheduler(fetchers, host_limit, delay, url -> 
+		{
+			// Fetching the Page from that URL up to 3 Redirects, Unless it Did Not Change Since an Earlier Crawl
+			CrawlPage page = HtmlFetcher.fetchPage(url, 3, HtmlFetcher.DEFAULT_MAX_BYTES, pages.get(url.toString()));
+			
+			parse_slots.acquireUninterruptibly();
+			multithreading.execute(new HtmlTask(url, page));
+		});
 		
-		url_list.add(seed);
+		// Seed is the 1st URL to Begin Crawling, Unless a Resumed Crawl Already Claimed it
+		if (frontier.claim(seed))
+		{
+			scheduler.schedule(seed);
+		}
+		
+		for (String url : resumed)
+		{
+			scheduler.schedule(new URL(url));
+		}
 		
-		// Wait for Work Queue's to Finish
-		multithreading.join();
+		// Saves the Crawl's Progress Periodically While Crawling: No Thread at All Without a Checkpoint File
+		Timer saver = null;
+		
+		if (checkpoint_path != null)
+		{
+			saver = new Timer("CrawlCheckpoint", true);
+			saver.schedule(new TimerTask()
+			{
+				@Override
+				public void run()
+				{
+					saveCheckpoint();
+				}
+			}, checkpoint_interval, checkpoint_interval);
+		}
+		
+		// Parsed Pages Schedule More Fetches, so Wait Until Neither has Work Left
+		do
+		{
+			scheduler.finish();
+			multithreading.finish();
+		}
+		while (!scheduler.isIdle());
+		
+		scheduler.shutdown();
+		CrawlMetrics.report();
+		lock.report();
+		
+		if (saver != null)
+		{
+			saver.cancel();
+		}
+		
+		// Pages an Earlier Crawl Indexed that this Crawl Never Reached
+		for (String url : pages.keySet())
+		{
+			if (!frontier.hasClaimed(url))
+			{
+				pages.remove(url);
+				remove(url);
+			}
+		}
+		
+		// The Last Checkpoint Holds the Whole Crawl: Resuming it Only Restores the Index
+		if (checkpoint_path != null)
+		{
+			saveCheckpoint();
+		}
+	}
+	
+	/**
+	 * Terminates the worker threads once their work is finished, if this inverted
+	 * index started them. A work queue passed in is shut down by whoever started it.
+	 */
+	@Override
+	public void shutdown()
+	{
+		if (owns_queue)
+		{
+			multithreading.join();
+		}
 	}
 	
 	/**
-	 * Inner Task Processes a File to the Inverted Index
+	 * Saves the progress of the web crawl to the file every so often, and once
+	 * more when the crawl finishes
+	 * 
+	 * @param path is the file to save the progress to
+	 * @param seconds is the number of seconds between two saves
+	 */
+	public void checkpoint(Path path, long seconds)
+	{
+		checkpoint_path = path;
+		checkpoint_interval = Math.max(1, seconds) * 1000;
+	}
+	
+	/**
+	 * Restores the progress of an earlier web crawl: its index, the URLs it
+	 * claimed, and the URLs it had not finished, which are crawled again by the
+	 * next call to {@link #addHtml(URL)}
+	 * 
+	 * @param path is the file the progress was saved to
+	 * @throws IOException if the progress could not be read
+	 */
+	public void resume(Path path) throws IOException
+	{
+		CrawlCheckpoint checkpoint = refresh(path);
+		
+		frontier.restore(checkpoint.getSeen(), checkpoint.getPending(), checkpoint.getTotal());
+	}
+	
+	/**
+	 * Restores the index of an earlier web crawl, so that the next call to
+	 * {@link #addHtml(URL)} crawls again from the seed but only indexes the
+	 * pages that changed. Pages the new crawl does not reach are removed.
+	 * 
+	 * @param path is the file the progress was saved to
+	 * @return the progress that was read
+	 * @throws IOException if the progress could not be read
+	 */
+	public CrawlCheckpoint refresh(Path path) throws IOException
+	{
+		CrawlCheckpoint checkpoint = CrawlCheckpoint.read(path);
+		
+		lock.write().lock();
+		
+		try
+		{
+			for (Map.Entry<String, TreeMap<String, ArrayList<Integer>>> word : checkpoint.getIndex().entrySet())
+			{
+				for (Map.Entry<String, ArrayList<Integer>> document : word.getValue().entrySet())
+				{
+					for (Integer position : document.getValue())
+					{
+						add(word.getKey(), document.getKey(), position);
+					}
+				}
+			}
+		}
+		finally
+		{
+			lock.write().unlock();
+		}
+		
+		pages.putAll(checkpoint.getPages());
+		
+		return checkpoint;
+	}
+	
+	/**
+	 * Removes a document and all of its positions from the inverted index
+	 * 
+	 * @param document is the name of the document to remove
+	 * @return true if the document was in the inverted index
+	 */
+	@Override
+	public boolean remove(String document)
+	{
+		lock.write().lock();
+		
+		try
+		{
+			return super.remove(document);
+		}
+		finally
+		{
+			lock.write().unlock();
+		}
+	}
+	
+	/**
+	 * Replaces the words of 1 entire document. Searches see either the old or
+	 * the new words, never a mix of both.
+	 * 
+	 * @param document is the name of the document to replace
+	 * @param list is the new words of the document, in order
+	 * @return true if the document was in the inverted index before
+	 */
+	@Override
+	public boolean replace(String document, ArrayList<String> list)
+	{
+		lock.write().lock();
+		
+		try
+		{
+			return super.replace(document, list);
+		}
+		finally
+		{
+			lock.write().unlock();
+		}
+	}
+	
+	/**
+	 * Copies the inverted index, so the copy can be saved while indexing continues
+	 * 
+	 * @return a deep copy of the mapping from words to the documents and positions
+	 */
+	protected TreeMap<String, TreeMap<String, ArrayList<Integer>>> copyIndex()
+	{
+		TreeMap<String, TreeMap<String, ArrayList<Integer>>> copy = new TreeMap<>();
+		
+		lock.read().lock();
+		
+		try
+		{
+			// Deep Copy: Indexing Continues While the Copy is Written
+			for (Map.Entry<String, TreeMap<String, ArrayList<Integer>>> word : inverted_index.entrySet())
+			{
+				TreeMap<String, ArrayList<Integer>> documents = new TreeMap<>();
+				
+				for (Map.Entry<String, ArrayList<Integer>> document : word.getValue().entrySet())
+				{
+					documents.put(document.getKey(), new ArrayList<>(document.getValue()));
+				}
+				
+				copy.put(word.getKey(), documents);
+			}
+		}
+		finally
+		{
+			lock.read().unlock();
+		}
+		
+		return copy;
+	}
+	
+	/**
+	 * Saves the progress of the web crawl. Takes every parse slot first, so no
+	 * page is part way through being indexed: every claimed URL is either fully
+	 * in the index or still pending.
+	 */
+	private synchronized void saveCheckpoint()
+	{
+		CrawlCheckpoint checkpoint;
+		
+		parse_slots.acquireUninterruptibly(parse_limit);
+		
+		try
+		{
+			checkpoint = new CrawlCheckpoint(copyIndex(), frontier.getSeen(), frontier.getPending(), frontier.size(), new HashMap<>(pages));
+		}
+		finally
+		{
+			parse_slots.release(parse_limit);
+		}
+		
+		try
+		{
+			checkpoint.write(checkpoint_path);
+		}
+		catch (IOException e)
+		{
+			// Runs on the Checkpoint Timer's Thread: the Cause Would Otherwise be Lost
+			log.warn("Could not save the crawl to \"{}\"", checkpoint_path, e);
+		}
+	}
+	
+	/**
+	 * Inner Task Processes a Batch of Files to the Inverted Index
 	 *
 	 */
 	public class Task implements Runnable
 	{
 		/**
-		 * Current Document
+		 * Current Documents
 		 */
-		public Path current_path;
+		public List<Path> current_paths;
 
 		/**
 		 * Instantiates the current path
@@ -139,41 +728,50 @@ public class MTInvertedIndex extends InvertedIndex
 		 */
 		public Task(Path current_path)
 		{
-			this.current_path = current_path;
+			this(List.of(current_path));
+		}
+
+		/**
+		 * Instantiates the current paths
+		 * 
+		 * @param current_paths is the batch of documents
+		 */
+		public Task(List<Path> current_paths)
+		{
+			this.current_paths = current_paths;
 		}
 
 		@Override
 		public void run()
 		{
-			// Add all the Cleaned and Stemmed English Words of the Current File in a new ArrayList 
-			ArrayList<String> list;
+			// Create a New Inverted Index for the Whole Batch
+			InvertedIndex thread_inverted_index = new InvertedIndex(false);
 			
-			try 
+			for (Path current_path : current_paths)
 			{
-				// Cleans and Stems Each Word in English of the Current File
-				list = WordCleaner.listStems(current_path);
-				
-				// The Filename
-				String document = current_path.toString();
-				
-				// Create a New Inverted Index for Each Thread
-				InvertedIndex thread_inverted_index = new InvertedIndex();
-				
-				// Build's the Thread's Inverted Index for 1 Document
-				thread_inverted_index.add(list, document);
-				
-				// Merges Thread's Inverted Index into Main Inverted Index
-				merge(thread_inverted_index);
-			} 
-			catch (IOException e) 
-			{
-				System.out.println("Could not read the path \"" + current_path.toString() +"\"");
+				try 
+				{
+					// Cleans and Stems Each Word in English of the Current File
+					ArrayList<String> list = WordCleaner.listStems(current_path);
+					
+					// Build's the Thread's Inverted Index for 1 More Document
+					thread_inverted_index.add(list, current_path.toString());
+				} 
+				catch (IOException e) 
+				{
+					System.out.println("Could not read the path \"" + current_path.toString() +"\"");
+				}
 			}
+			
+			// Merges Thread's Inverted Index into Main Inverted Index Once per Batch
+			merge(thread_inverted_index);
 		}
 	}
 	
 	/**
-	 * Merges the values of the thread inverted index into the main inverted index
+	 * Merges the values of the thread inverted index into the main inverted index.
+	 * The whole merge holds the write lock, so searches see all of a document's
+	 * words or none of them.
 	 * 
 	 * @param thread_inverted_index is the current thread's inverted index
 	 */
@@ -182,43 +780,44 @@ public class MTInvertedIndex extends InvertedIndex
 		// Words/Keys of the Thread Inverted Index
 		Set<String> thread_keys = thread_inverted_index.getKeys();
 		
-		// Loop through the Tread's Inverted Index
-		for (String word : thread_keys)
+		// Acquire the Write Lock
+		lock.write().lock();
+		
+		try
 		{
-			// Acquire the Write Lock
-			lock.write().lock();
-			try
+			// Loop through the Tread's Inverted Index
+			for (String word : thread_keys)
 			{
 				// Ensures that Thread's Word is in the Main Inverted Index
 				add(word);
-			}
-			finally
-			{
-				// Release the Write Lock
-				lock.write().unlock();
-			}
-			
-			// Inner Map - Documents and Positions
-			Map<String, ArrayList<Integer>> inner_map = thread_inverted_index.get(word);
-			
-			// Loop through the Documents
-			for (String doc : inner_map.keySet())
-			{
-				// List of the Word's Positions
-				ArrayList<Integer> positions = inner_map.get(doc);
 				
-				// Loop through the Positions
-				for (Integer position : positions)
+				// Inner Map - Documents and Positions
+				Map<String, ArrayList<Integer>> inner_map = thread_inverted_index.get(word);
+				
+				// Loop through the Documents
+				for (String doc : inner_map.keySet())
 				{
-					// Added Current Thread's Position Data to the Main Inverted Index
-					add(word, doc, position);
+					// List of the Word's Positions
+					ArrayList<Integer> positions = inner_map.get(doc);
+					
+					// Loop through the Positions
+					for (Integer position : positions)
+					{
+						// Added Current Thread's Position Data to the Main Inverted Index
+						add(word, doc, position);
+					}
 				}
 			}
-		}	
+		}
+		finally
+		{
+			// Release the Write Lock
+			lock.write().unlock();
+		}
 	}
 	
 	/**
-	 * Worker Thread to process 1 single URL
+	 * Worker Thread to process 1 single fetched URL
 	 *
 	 */
 	public class HtmlTask implements Runnable 
@@ -227,99 +826,136 @@ public class MTInvertedIndex extends InvertedIndex
 		 * Current Web Page
 		 */
 		public URL current_url;
+		
+		/**
+		 * Page Fetched from the Current Web Page
+		 */
+		public CrawlPage page;
 
 		/**
-		 * Instantiates the current URL
+		 * Instantiates the current URL and its page
 		 * 
 		 * @param current_url is the current Web Page
+		 * @param page is the page fetched from the current Web Page, or null if it could not be fetched
 		 */
-		public HtmlTask(URL current_url)
+		public HtmlTask(URL current_url, CrawlPage page)
 		{
 			this.current_url = current_url;
+			this.page = page;
 		}
 
 		@Override
 		public void run()
 		{
-			
+			try
+			{
+				process();
+			}
+			finally
+			{
+				// Not Crawled Again if the Crawl is Resumed
+				frontier.finish(current_url);
+				
+				// Let Another Fetched Page Wait for the Worker Threads
+				parse_slots.release();
+			}
+		}
+		
+		/**
+		 * Parses the HTML, schedules its links, and adds its words to the inverted index.
+		 * A page that did not change since an earlier crawl is not parsed or indexed
+		 * again, but its links are still followed.
+		 */
+		private void process()
+		{
 			// Add all the Cleaned and Stemmed English Words of the Current File in a new ArrayList 
 			ArrayList<String> list;
+			
+			// The URL
+			String url = current_url.toString();
+			
+			// What an Earlier Crawl Fetched from the URL
+			CrawlPage previous = pages.get(url);
 
-			// Fetching the Actual HTML content from that URL up to 3 Redirects
-			var results = HtmlFetcher.fetch(current_url, 3);
-
-			if (results == null)
+			if (page == null)
 			{
+				// Page is Gone: Drop what an Earlier Crawl Indexed
+				if (pages.remove(url) != null)
+				{
+					remove(url);
+				}
+				
 				return;
 			}
 			
-			// Store the Content of the Current URL
-			String content;
-			
-			// Remove the HTML Block Elements: e.g. <p>, <div>, <span>
-			content = HtmlCleaner.stripBlockElements(results);
-			
 			// Getting the Links inside the HTML Code
-			List<URL> links = LinkFinder.listUrls(current_url, content);
+			List<URL> links = new ArrayList<>();
 			
-			// Loop through the Links and Give each Link a Working Thread
-			for (URL link : links)
+			// Stays Null if the Page Did Not Change
+			String content = null;
+			
+			// Server Said the Page Did Not Change
+			if (page == previous)
+			{
+				links = toUrls(previous.getLinks());
+			}
+			else
 			{
-				// Acquire the Read Lock - Need to Lock because these are Shared Variables (total and max crawl)
-				lock.read().lock();
+				// Pages are Only Compared when the Crawl's Progress is Saved
+				String hash = checkpoint_path == null ? null : CrawlPage.hash(page.getHtml());
 				
-				if (total_crawl < max_crawl)
+				if (previous != null && previous.getHash().equals(hash))
 				{
-					// URL is not in the List, Then Crawl
-					if (!url_list.contains(link))
-					{
-						// Release the Read Lock
-						lock.read().unlock();
-						
-						// Acquire the Write Lock
-						lock.write().lock();
-						
-						// Add Link to the Work Queue to be Processed
-						multithreading.execute(new HtmlTask(link));
-						
-						/// Increment Total URL Crawled
-						total_crawl += 1;
-						
-						// Add to the List
-						url_list.add(link);
-						
-						// Release the Write Lock
-						lock.write().unlock();
-					}
-					else
-					{
-						// Release the Read Lock
-						lock.read().unlock();
-					}
-					
+					links = toUrls(previous.getLinks());
 				}
 				else
 				{
-					// Release the Read Lock
-					lock.read().unlock();
-					break;
+					// Remove the HTML Block Elements, Tags, and Entities in One Scan, Finding the Links Along the Way
+					content = HtmlCleaner.stripHtml(page.getHtml(), current_url, links);
+				}
+				
+				if (checkpoint_path != null)
+				{
+					page.parsed(hash, links.stream().map(URL::toString).toList());
+					pages.put(url, page);
 				}
 			}
 			
-			// Remove the HTML Tags: e.g. </a>, <!DOCTYPE>, <center>
-			content = HtmlCleaner.stripTags(content);
+			// Loop through the Links and Give each Link a Working Thread
+			for (URL link : links)
+			{
+				// Stop Looking at Links Once the Maximum is Reached
+				if (frontier.isFull())
+				{
+					break;
+				}
+				
+				// URL Has Not Been Crawled, Then Crawl
+				if (frontier.claim(link))
+				{
+					// Add Link to its Host's Queue to be Fetched
+					scheduler.schedule(link);
+				}
+			}
 			
-			// Remove the HTML Entities: e.g. &amp, &nbsp, &copy, 
-			content = HtmlCleaner.stripEntities(content);
+			// Index Already Has the Unchanged Page
+			if (content == null)
+			{
+				return;
+			}
 			
 			// Cleans and Stems Each Word in English of the Contents of the Current URL
 			list = WordCleaner.listStems(content);
 			
-			// The URL
-			String url = current_url.toString();
+			// Changed Page Replaces what an Earlier Crawl Indexed
+			if (previous != null)
+			{
+				replace(url, list);
+				return;
+			}
 			
 			// Current Thread's Inverted Index
-			InvertedIndex thread_inverted_index = new InvertedIndex();
+			InvertedIndex thread_inverted_index = new InvertedIndex(false);
 			
 			// Builds the Current Thread's Inverted Index for 1 URL
 			thread_inverted_index.add(list, url);
@@ -327,6 +963,30 @@ public class MTInvertedIndex extends InvertedIndex
 			// Merges the Content of the Current Thread's Inverted Index into the Main Inverted Index
 			merge(thread_inverted_index);
 		}
+		
+		/**
+		 * Converts the links saved by an earlier crawl back into URLs
+		 * 
+		 * @param saved is the links as strings
+		 * @return the links as URLs
+		 */
+		private List<URL> toUrls(List<String> saved)
+		{
+			List<URL> links = new ArrayList<>(saved.size());
+			
+			for (String link : saved)
+			{
+				try
+				{
+					links.add(new URL(link));
+				}
+				catch (MalformedURLException e)
+				{
+					CrawlMetrics.addInvalidLink();
+				}
+			}
+			
+			return links;
+		}
 	}
 }
-
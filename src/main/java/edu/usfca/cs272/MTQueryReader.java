@@ -1,13 +1,27 @@
 package edu.usfca.cs272;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Semaphore;
 
 /**
+ * Multithreaded version of the query reader. Each query is searched by its own
+ * task, which builds its counts privately and publishes them once to a
+ * concurrent map. The inverted index must not be modified during a search.
+ * 
  * @author Nino Estrada
  * @author CS 272 Software Development (University of San Francisco)
  * @version Fall 2022
@@ -20,20 +34,48 @@ public class MTQueryReader extends QueryReader
 	 * Worker Threads
 	 */
 	private WorkQueue multithreading;
+	
+	/**
+	 * Whether the Work Queue was Started by this Query Reader and Should be Shut Down with it
+	 */
+	private boolean owns_queue;
+	
 	/**
-	 * Lock Object Controls Access of the Shared Resources Among the Worker Threads
+	 * Number of Queries Written to the Results by One Task
 	 */
-	private ReadWriteLock lock;
+	private static final int CHUNK_SIZE = 256;
 	
 	/**
-	 * Instantiates the work queue and lock object
+	 * Number of Query Lines per Worker Thread that may be Read Ahead of the Search
+	 */
+	private static final int LINES_PER_THREAD = 64;
+	
+	/**
+	 * Instantiates the work queue and the concurrent maps
 	 * 
 	 * @param threads is the number of worker threads
 	 */
 	public MTQueryReader(int threads)
 	{
-		multithreading = new WorkQueue(threads);
-		lock = new ReadWriteLock();
+		this(new WorkQueue(threads));
+		owns_queue = true;
+	}
+	
+	/**
+	 * Instantiates the concurrent maps, searching with the given work queue
+	 * 
+	 * @param multithreading is the work queue searching the queries
+	 */
+	public MTQueryReader(WorkQueue multithreading)
+	{
+		this.multithreading = multithreading;
+		
+		// Tasks Publish their Results Concurrently
+		query_calculation = new ConcurrentSkipListMap<>();
+		scores = new ConcurrentSkipListMap<>();
+		
+		// Query Words are Shared Between the Tasks of One Search
+		word_matches = new ConcurrentHashMap<>();
 	}
 	
 	/**
@@ -43,17 +85,270 @@ public class MTQueryReader extends QueryReader
 	 * @param list_of_queries is a list of set of queries
 	 * @param is_partial is checking if to calculate for exact or partial search
 	 */
-	public void search(InvertedIndex inverted_index, List<Set<String>> list_of_queries, boolean is_partial) 
+	public void search(SearchableIndex inverted_index, List<Set<String>> list_of_queries, boolean is_partial) 
 	{
+		// Matches from a Previous Search may be from a Different Index or Search Operation
+		word_matches.clear();
+		
+		// Queries Already Given a Task in this Search
+		Set<String> seen = new HashSet<String>();
+		
 		// Looping through the List of Queries 
 		for (Set<String> query : list_of_queries)
 		{
+			// Converts the Set of Queries to a String
+			String complete_query = queryKey(query);
+			
+			// Skip this Query if it Already Been Seen
+			if (query_calculation.containsKey(complete_query) || !seen.add(complete_query))
+			{
+				continue;
+			}
+			
 			// Adds a Work (or Task) Request to the Queue
-			multithreading.execute(new Task(query, inverted_index, is_partial));
+			multithreading.execute(new Task(query, complete_query, inverted_index, is_partial, null));
 		}
 		
 		// Wait for Work Queue's to Finish
-		multithreading.join();
+		multithreading.finish();
+	}
+	
+	/**
+	 * Searches and scores the queries in one pass, where each task scores its query
+	 * right after searching it and only publishes the scores
+	 * 
+	 * @param inverted_index is the inverted index
+	 * @param list_of_queries is a list of set of queries
+	 * @param is_partial is checking if to calculate for exact or partial search
+	 */
+	@Override
+	public void searchAndScore(SearchableIndex inverted_index, List<Set<String>> list_of_queries, boolean is_partial)
+	{
+		// Matches from a Previous Search may be from a Different Index or Search Operation
+		word_matches.clear();
+		
+		// Mapping of a Document and it's Word Count
+		Map<String, Integer> word_count = inverted_index.getWordCount();
+		
+		// Queries Already Given a Task in this Search
+		Set<String> seen = new HashSet<String>();
+		
+		// Looping through the List of Queries 
+		for (Set<String> query : list_of_queries)
+		{
+			// Converts the Set of Queries to a String
+			String complete_query = queryKey(query);
+			
+			// Skip this Query if it Already Been Seen
+			if (scores.containsKey(complete_query) || !seen.add(complete_query))
+			{
+				continue;
+			}
+			
+			// Adds a Work (or Task) Request to the Queue
+			multithreading.execute(new Task(query, complete_query, inverted_index, is_partial, word_count));
+		}
+		
+		// Wait for Work Queue's to Finish
+		multithreading.finish();
+	}
+	
+	/**
+	 * Reads the query file one line at a time and gives each line a task that
+	 * stems, searches, and scores it. Only a limited number of lines are read
+	 * ahead of the worker threads, and the scores are kept in sorted order as the
+	 * tasks finish.
+	 * 
+	 * @param inverted_index is the inverted index
+	 * @param query_file is the text file of queries used to search
+	 * @param is_partial is checking if to calculate for exact or partial search
+	 * @throws IOException if the query file could not be read
+	 */
+	@Override
+	public void searchAndScore(SearchableIndex inverted_index, Path query_file, boolean is_partial) throws IOException
+	{
+		// Matches from a Previous Search may be from a Different Index or Search Operation
+		word_matches.clear();
+		
+		// Mapping of a Document and it's Word Count
+		Map<String, Integer> word_count = inverted_index.getWordCount();
+		
+		// Queries Already Claimed by a Task in this Search
+		Set<String> seen = ConcurrentHashMap.newKeySet();
+		
+		// Lines Read but not Yet Finished
+		Semaphore in_flight = new Semaphore(multithreading.size() * LINES_PER_THREAD);
+		
+		// Read the User's Queries
+		try (BufferedReader reader = Files.newBufferedReader(query_file))
+		{
+			String line;
+			
+			// Keep Looping through the User's Queries
+			while ((line = reader.readLine()) != null)
+			{
+				String query_line = line;
+				
+				// Wait Until the Workers Catch Up
+				in_flight.acquireUninterruptibly();
+				
+				// Adds a Work (or Task) Request to the Queue
+				multithreading.execute(() -> 
+				{
+					try
+					{
+						// Stems Each Query (Word) in English and Stores it in a TreeSet
+						Set<String> query = WordCleaner.uniqueStems(query_line);
+						
+						// Converts the Set of Queries to a String
+						String complete_query = queryKey(query);
+						
+						// Skip this Query if it is Empty or Already Been Seen
+						if (query.isEmpty() || scores.containsKey(complete_query) || !seen.add(complete_query))
+						{
+							return;
+						}
+						
+						// Score the Query Right After its Search
+						scores.put(complete_query, scoreQuery(searchQuery(inverted_index, query, is_partial), word_count));
+					}
+					finally
+					{
+						in_flight.release();
+					}
+				});
+			}
+		}
+		finally
+		{
+			// Wait for Work Queue's to Finish
+			multithreading.finish();
+		}
+	}
+	
+	/**
+	 * Computes and calculates the score of each entry (queries), scoring each query in its own task
+	 * 
+	 * @param word_count is the mapping of a document and it's word count
+	 */
+	@Override
+	public void calculateScore(Map<String, Integer> word_count)
+	{
+		// Loop Through all the Queries
+		for (String query : query_calculation.keySet())
+		{
+			// Adds a Work (or Task) Request to the Queue
+			multithreading.execute(() -> scores.put(query, scoreQuery(query_calculation.get(query), word_count)));
+		}
+		
+		// Wait for Work Queue's to Finish
+		multithreading.finish();
+	}
+	
+	/**
+	 * Prints the exact or partial search results in JSON format. Chunks of queries
+	 * are written to strings by the worker threads, and then written to the writer
+	 * in order, so the output is the same as the single threaded query reader.
+	 * 
+	 * @param inverted_index is the class used to retrieve which word count of a specific document
+	 * @param word_count is a mapping of words and their total count based on a specific document
+	 * @param writer is the class file for file output string that we want to write to the file
+	 * @throws IOException if it could not read the results file
+	 */
+	@Override
+	public void printJson(SearchableIndex inverted_index, Map<String, Integer> word_count, Writer writer) throws IOException
+	{
+		// Nothing to Split Up into Chunks
+		if (scores.isEmpty())
+		{
+			super.printJson(inverted_index, word_count, writer);
+			return;
+		}
+		
+		// Queries in Sorted Order
+		List<String> queries = new ArrayList<String>(scores.keySet());
+		
+		// Chunks Written at the Same Time: Limits how Much Output is Held in Memory
+		int window = multithreading.size() * 4;
+		
+		writer.write("{\n");
+		
+		for (int start = 0; start < queries.size(); start += window * CHUNK_SIZE)
+		{
+			// Output of Each Chunk in this Window
+			StringWriter[] chunks = new StringWriter[Math.min(window, (queries.size() - start + CHUNK_SIZE - 1) / CHUNK_SIZE)];
+			
+			for (int i = 0; i < chunks.length; i += 1)
+			{
+				int from = start + i * CHUNK_SIZE;
+				int to = Math.min(from + CHUNK_SIZE, queries.size());
+				
+				StringWriter chunk = new StringWriter();
+				chunks[i] = chunk;
+				
+				// Adds a Work (or Task) Request to the Queue
+				multithreading.execute(() -> writeChunk(queries, from, to, chunk));
+			}
+			
+			// Wait for Work Queue's to Finish
+			multithreading.finish();
+			
+			// Write the Chunks in Order
+			for (StringWriter chunk : chunks)
+			{
+				writer.write(chunk.toString());
+			}
+		}
+		
+		writer.write("\n}\n");
+	}
+	
+	/**
+	 * Writes a range of the sorted queries and their entries, with a comma before
+	 * every query except the first one of all the queries
+	 * 
+	 * @param queries is all the queries in sorted order
+	 * @param from is the index of the first query to write
+	 * @param to is the index after the last query to write
+	 * @param chunk is where to write the queries
+	 */
+	private void writeChunk(List<String> queries, int from, int to, StringWriter chunk)
+	{
+		try
+		{
+			for (int i = from; i < to; i += 1)
+			{
+				// Add a Comma Except for the First Element
+				if (i != 0)
+				{
+					chunk.write(",\n");
+				}
+				
+				PrettyJsonWriter.writeQuery(queries.get(i), scores.get(queries.get(i)), chunk, 0);
+			}
+		}
+		catch (IOException e)
+		{
+			// A StringWriter does not Throw an IOException
+			throw new UncheckedIOException(e);
+		}
+	}
+	
+	/**
+	 * Waits for the worker threads to finish, and terminates them if this query
+	 * reader started them. A work queue passed in is shut down by whoever started it.
+	 */
+	@Override
+	public void shutdown()
+	{
+		if (owns_queue)
+		{
+			multithreading.join();
+		}
+		else
+		{
+			multithreading.finish();
+		}
 	}
 	
 	/**
@@ -66,137 +361,59 @@ public class MTQueryReader extends QueryReader
 		 */
 		Set<String> query;
 		
+		/**
+		 * The query as a string
+		 */
+		String complete_query;
+		
 		/**
 		 * Inverted Index
 		 */
-		InvertedIndex inverted_index;
+		SearchableIndex inverted_index;
 		
 		/**
 		 * Checks which Search Operation to Perform Exact or Partial
 		 */
 		boolean is_partial;
+		
+		/**
+		 * Mapping of a Document and it's Word Count, or null to Publish the Counts Instead of the Scores
+		 */
+		Map<String, Integer> word_count;
 
 		/**
 		 * Instantiates the query, inverted index, and is partial
 		 * 
 		 * @param query is a set of queries
+		 * @param complete_query is the query as a string
 		 * @param inverted_index is the inverted index
 		 * @param is_partial checks which search operation to perform exact or partial
+		 * @param word_count is the mapping of a document and it's word count used to
+		 *   score the query, or null to only search the query
 		 */
-		public Task(Set<String> query, InvertedIndex inverted_index, boolean is_partial)
+		public Task(Set<String> query, String complete_query, SearchableIndex inverted_index, boolean is_partial, Map<String, Integer> word_count)
 		{
 			this.query = query;
+			this.complete_query = complete_query;
 			this.inverted_index = inverted_index;
 			this.is_partial = is_partial;
+			this.word_count = word_count;
 		}
 
 		@Override
 		public void run()
 		{
-			// Add all the Cleaned and Stemmed English Words of the Current File in a new ArrayList 
-			ArrayList<String> list;
-			
-			String complete_query = queryKey(query);
-		
-			// Acquire the Write Lock
-			lock.write().lock();
+			// Document to Count either Partially or Exact for this Query: Only Seen by this Task
+			TreeMap<String, Integer> values = searchQuery(inverted_index, query, is_partial);
 			
-			// Skip this Query if it Already Been Seen
-			if (query_calculation.containsKey(complete_query)) 
+			// Publish the Finished Counts or Scores Once
+			if (word_count == null)
 			{
-				// Release the Write Lock
-				lock.write().unlock();
-				return;
+				query_calculation.put(complete_query, values);
 			}
-			
-			// Put Query in the TreeMap no Matter What
-			query_calculation.putIfAbsent(complete_query, new TreeMap<String, Integer>());
-			
-			// Release the Write Lock
-			lock.write().unlock();
-			
-			// Acquire the Read Lock
-			lock.read().lock();
-			
-			// Document to Count either Partially or Exact for this Query
-			TreeMap<String, Integer> values = query_calculation.get(complete_query);
-			
-			// Release the Read Lock
-			lock.read().unlock();
-			
-			// Looping through the Words of One Query
-			for (String query_word : query)
+			else
 			{
-				Set<String> matching_keys;
-				
-				/* -------------------- Exact Search -------------------- */
-				
-				if (!is_partial)
-				{
-					// Acquire the Read Lock
-					lock.read().lock();
-					
-					// Query Word is in the Inverted Index
-					if (inverted_index.has(query_word))
-					{
-						// Release the Read Lock
-						lock.read().unlock();
-						
-						// Instantiate the Set
-						matching_keys = new HashSet<String>();
-						
-						// Add the Query Word to the Set of Matching Words
-						matching_keys.add(query_word);
-					}
-					else
-					{
-						// Release the Read Lock and Continue to Next Iteration
-						lock.read().unlock();
-						continue;
-					}
-				}
-				else
-				{
-					/* -------------------- Partial Search -------------------- */
-					
-					// Acquire the Read Lock
-					lock.read().lock();
-					
-					// Checks if the Query Word is Partially in the Inverted Index
-					matching_keys = inverted_index.getByPrefix(query_word);
-					
-					// Release the Read Lock
-					lock.read().unlock();
-				}
-				
-				// Loop through the Inverted Index's Words
-				for (String stem_word : matching_keys)
-				{
-					// Acquire the Read Lock
-					lock.read().lock();
-					
-					// All the Documents for that Specific Stem Word that contains that Query Word: Inner Map of Inverted Index
-					Map<String, ArrayList<Integer>> docs = inverted_index.get(stem_word);
-					
-					// Release the Read Lock
-					lock.read().unlock();
-					
-					// Acquire the Write Lock
-					lock.write().lock();
-					
-					// Loop through the Stem Word's Documents
-					for (String document : docs.keySet())
-					{
-						// Initialized the Count to be Zero
-						values.putIfAbsent(document, 0);
-						
-						// Increment the Count Based on the Size of the Inverted Index's Position's ArrayList Length
-						values.put(document, values.get(document) + docs.get(document).size());
-					}	
-					
-					// Release the Write Lock
-					lock.write().unlock();
-				}
+				scores.put(complete_query, scoreQuery(values, word_count));
 			}
 		}
 	}
@@ -403,7 +403,7 @@ public class PrettyJsonWriter
 	/**
 	 * Writes the queries as a pretty JSON object with nested arrays.
 	 * 
-	 * @param queryCalculation is a TreeMap that stores a mapping of queries to documents and its counts
+	 * @param queryCalculation is a sorted map that stores a mapping of queries to its entries
 	 * @param wordCount is a mapping of words and their total count based on a specific document
 	 * @param writer the writer to use
 	 * @param indent the initial indent level; the first bracket is not indented,
@@ -412,7 +412,7 @@ public class PrettyJsonWriter
 	 * @throws IOException if an IO error occurs
 	 */
 	public static void writeDoubleNestedArrays(
-			TreeMap<String, TreeSet<Entry>> queryCalculation, Map<String, Integer> wordCount,
+			SortedMap<String, ? extends Collection<Entry>> queryCalculation, Map<String, Integer> wordCount,
 			Writer writer, int indent) throws IOException {
 
 		writer.flush();
@@ -432,50 +432,13 @@ public class PrettyJsonWriter
 			// Loop Through all the Queries
 			for (String query: queryCalculation.keySet())
 			{
-				// Format Query
-				writeQuote(query, writer, indent + 1);
-				writer.write(": ");
-
-				writeIndent("[\n", writer, 0);
-
-				// Set of Entries
-				TreeSet<Entry> scores = queryCalculation.get(query);
-				
-				int inner_map_length = scores.size();
-				int inner_idx = 0;
-				
-
-				// Loop through the Entries
-				for (Entry score : scores)
-				{
-					writeIndent(writer, indent + 2);
-
-					
-					// Writes the Entry's Elements as a Pretty JSON Object
-					writeMap(score.toMap(), writer, indent + 2);
-					
-					// Add a Comma Except for the Last Element
-					if (inner_idx != inner_map_length - 1)
-					{
-						writeIndent(",\n", writer, 0);
-					}
-					else
-					{
-						writeIndent("\n", writer, 0);
-					}
-					
-					// Increment Inner Index
-					inner_idx += 1;
-				}
+				// Writes the Query and its Entries
+				writeQuery(query, queryCalculation.get(query), writer, indent);
 				
 				// Add a Comma Except for the Last Element
 				if (index != length - 1)
 				{
-					writeIndent("],\n", writer, 1);
-				}
-				else
-				{
-					writeIndent("]", writer, 1);
+					writer.write(",\n");
 				}
 				
 				// Increment Index
@@ -488,6 +451,53 @@ public class PrettyJsonWriter
 		}
 	}
 	
+	/**
+	 * Writes one query and its entries as a member of a pretty JSON object,
+	 * without a comma or newline after the closing bracket.
+	 * 
+	 * @param query is the query to write
+	 * @param scores is the entries of the query in sorted order
+	 * @param writer the writer to use
+	 * @param indent the indent level of the object containing the query
+	 * @throws IOException if an IO error occurs
+	 */
+	public static void writeQuery(String query, Collection<Entry> scores, Writer writer, int indent) throws IOException {
+		
+		// Format Query
+		writeQuote(query, writer, indent + 1);
+		writer.write(": ");
+
+		writeIndent("[\n", writer, 0);
+		
+		int inner_map_length = scores.size();
+		int inner_idx = 0;
+
+		// Loop through the Entries
+		for (Entry score : scores)
+		{
+			writeIndent(writer, indent + 2);
+
+			
+			// Writes the Entry's Elements as a Pretty JSON Object
+			writeMap(score.toMap(), writer, indent + 2);
+			
+			// Add a Comma Except for the Last Element
+			if (inner_idx != inner_map_length - 1)
+			{
+				writeIndent(",\n", writer, 0);
+			}
+			else
+			{
+				writeIndent("\n", writer, 0);
+			}
+			
+			// Increment Inner Index
+			inner_idx += 1;
+		}
+		
+		writeIndent("]", writer, 1);
+	}
+
 	/**
 	 * Writes the elements as a pretty JSON object with nested arrays. The generic
 	 * notation used allows this method to be used for any type of map with any
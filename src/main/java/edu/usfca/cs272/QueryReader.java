@@ -7,10 +7,11 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashSet;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.SortedMap;
 import java.util.TreeMap;
 import java.util.TreeSet;
 
@@ -27,12 +28,17 @@ public class QueryReader
 	/**
 	 * Stores a Mapping of a Clean, Stemmed Query to its Documents and Match Count for each Document
 	 */
-	protected TreeMap<String, TreeMap<String, Integer>> query_calculation;
+	protected Map<String, TreeMap<String, Integer>> query_calculation;
 	
 	/**
 	 * Stores a Mapping of each Query Word to it's Entry Data (Score, Count, Document)
 	 */
-	protected TreeMap<String, TreeSet<Entry>> scores;
+	protected SortedMap<String, TreeSet<Entry>> scores;
+	
+	/**
+	 * Stores a Mapping of a Query Word to its Documents and Match Count, Reused Across the Queries of One Search
+	 */
+	protected Map<String, Map<String, Integer>> word_matches;
 	
 	/**
 	 * Instantiates the TreeMaps
@@ -41,6 +47,7 @@ public class QueryReader
 	{	
 		query_calculation = new TreeMap<>();
 		scores = new TreeMap<>();
+		word_matches = new HashMap<>();
 	}
 	
 	/**
@@ -105,8 +112,11 @@ public class QueryReader
 	 * @param list_of_queries is a list of TreeSet of queries
 	 * @param is_partial is checking if to calculate for exact or partial search
 	 */
-	public void search(InvertedIndex inverted_index, List<Set<String>> list_of_queries, boolean is_partial) 
+	public void search(SearchableIndex inverted_index, List<Set<String>> list_of_queries, boolean is_partial) 
 	{		
+		// Matches from a Previous Search may be from a Different Index or Search Operation
+		word_matches.clear();
+		
 		// Looping through the List of Queries 
 		for (Set<String> query : list_of_queries)
 		{
@@ -119,64 +129,211 @@ public class QueryReader
 				continue;
 			}
 			
-			// Put Query in the TreeMap no Matter What
-			query_calculation.putIfAbsent(complete_query, new TreeMap<String, Integer>());
-			
 			// Document to Count either Partially or Exact for this Query
-			TreeMap<String, Integer> values = query_calculation.get(complete_query);
+			query_calculation.put(complete_query, searchQuery(inverted_index, query, is_partial));
+		}
+	}
+	
+	/**
+	 * Searches and scores the queries in one pass, so the document counts of a
+	 * query are only kept until the query is scored instead of until all of the
+	 * queries are searched
+	 * 
+	 * @param inverted_index is the inverted index
+	 * @param list_of_queries is a list of TreeSet of queries
+	 * @param is_partial is checking if to calculate for exact or partial search
+	 */
+	public void searchAndScore(SearchableIndex inverted_index, List<Set<String>> list_of_queries, boolean is_partial)
+	{
+		// Matches from a Previous Search may be from a Different Index or Search Operation
+		word_matches.clear();
+		
+		// Mapping of a Document and it's Word Count
+		Map<String, Integer> word_count = inverted_index.getWordCount();
+		
+		// Looping through the List of Queries 
+		for (Set<String> query : list_of_queries)
+		{
+			// Converts the Set of Queries to a String
+			String complete_query = queryKey(query);
+			
+			// Skip this Query if it Already Been Seen
+			if (scores.containsKey(complete_query)) 
+			{
+				continue;
+			}
+			
+			// Score the Query Right After its Search
+			scores.put(complete_query, scoreQuery(searchQuery(inverted_index, query, is_partial), word_count));
+		}
+	}
+	
+	/**
+	 * Reads, stems, searches, and scores the query file one line at a time, so the
+	 * queries are never all held in memory at once
+	 * 
+	 * @param inverted_index is the inverted index
+	 * @param query_file is the text file of queries used to search
+	 * @param is_partial is checking if to calculate for exact or partial search
+	 * @throws IOException if the query file could not be read
+	 */
+	public void searchAndScore(SearchableIndex inverted_index, Path query_file, boolean is_partial) throws IOException
+	{
+		// Matches from a Previous Search may be from a Different Index or Search Operation
+		word_matches.clear();
+		
+		// Mapping of a Document and it's Word Count
+		Map<String, Integer> word_count = inverted_index.getWordCount();
+		
+		// Read the User's Queries
+		try (BufferedReader reader = Files.newBufferedReader(query_file))
+		{
+			String line;
 			
-			// Looping through the Words of One Query
-			for (String query_word : query)
+			// Keep Looping through the User's Queries
+			while ((line = reader.readLine()) != null)
 			{
-				// Set of Query Words which are Also in the Inverted Index
-				Set<String> matching_keys;
+				// Stems Each Query (Word) in English and Stores it in a TreeSet
+				Set<String> query = WordCleaner.uniqueStems(line);
 				
-				/* -------------------- Exact Search -------------------- */
+				// Converts the Set of Queries to a String
+				String complete_query = queryKey(query);
 				
-				if (!is_partial)
-				{
-					// Query Word is in the Inverted Index
-					if (inverted_index.has(query_word))
-					{
-						// Instantiate the Set
-						matching_keys = new HashSet<String>();
-						
-						// Add the Query Word to the Set of Matching Words
-						matching_keys.add(query_word);
-					}
-					else
-					{
-						continue;
-					}
-				}
-				else
+				// Skip this Query if it is Empty or Already Been Seen
+				if (query.isEmpty() || scores.containsKey(complete_query))
 				{
-					/* -------------------- Partial Search -------------------- */
-					
-					// Checks if the Query Word is Partially in the Inverted Index
-					matching_keys = inverted_index.getByPrefix(query_word);
+					continue;
 				}
 				
-				// Loop through the Stem Query Words which are in the Inverted Index
-				for (String stem_word : matching_keys)
-				{
-					// All the Documents for that Specific Stem Word that contains that Query Word: Inner Map of Inverted Index
-					Map<String, ArrayList<Integer>> docs = inverted_index.get(stem_word);
-					
-					// Loop through the Stem Word's Documents
-					for (String document : docs.keySet())
-					{
-						// Initialized the Count to be Zero
-						values.putIfAbsent(document, 0);
-						
-						// Increment the Count Based on the Size of the Inverted Index's Position's ArrayList Length
-						values.put(document, values.get(document) + docs.get(document).size());
-					}	
-				}
+				// Score the Query Right After its Search
+				scores.put(complete_query, scoreQuery(searchQuery(inverted_index, query, is_partial), word_count));
 			}
 		}
 	}
 	
+	/**
+	 * Searches the inverted index for one query
+	 * 
+	 * @param inverted_index is the inverted index
+	 * @param query is a set of stemmed query words
+	 * @param is_partial is checking if to calculate for exact or partial search
+	 * @return a mapping of the query's documents to its match count
+	 */
+	protected TreeMap<String, Integer> searchQuery(SearchableIndex inverted_index, Set<String> query, boolean is_partial)
+	{
+		// Document to Count either Partially or Exact for this Query
+		TreeMap<String, Integer> values = new TreeMap<String, Integer>();
+		
+		// Looping through the Words of One Query
+		for (String query_word : query)
+		{
+			// Add the Query Word's Count to Each of its Documents
+			addMatches(values, getMatches(inverted_index, query_word, is_partial));
+		}
+		
+		return values;
+	}
+	
+	/**
+	 * Provides the documents and match count of one query word, only searching the
+	 * inverted index the first time the word is seen during a search
+	 * 
+	 * @param inverted_index is the inverted index
+	 * @param query_word is a stemmed word of a query
+	 * @param is_partial is checking if to calculate for exact or partial search
+	 * @return a mapping of the documents to the number of matches of the query word
+	 */
+	protected Map<String, Integer> getMatches(SearchableIndex inverted_index, String query_word, boolean is_partial)
+	{
+		// Query Word Already Searched by a Previous Query
+		Map<String, Integer> matches = word_matches.get(query_word);
+		
+		if (matches == null)
+		{
+			matches = countMatches(inverted_index, query_word, is_partial);
+			
+			// Another Thread may have Counted the Same Query Word in the Meantime
+			Map<String, Integer> previous = word_matches.putIfAbsent(query_word, matches);
+			
+			if (previous != null)
+			{
+				matches = previous;
+			}
+		}
+		
+		return matches;
+	}
+	
+	/**
+	 * Searches the inverted index for one query word and counts its matches in each document
+	 * 
+	 * @param inverted_index is the inverted index
+	 * @param query_word is a stemmed word of a query
+	 * @param is_partial is checking if to calculate for exact or partial search
+	 * @return a mapping of the documents to the number of matches of the query word
+	 */
+	public static Map<String, Integer> countMatches(SearchableIndex inverted_index, String query_word, boolean is_partial)
+	{
+		// Document to Count for this Query Word
+		Map<String, Integer> matches = new HashMap<String, Integer>();
+		
+		// Set of Query Words which are Also in the Inverted Index
+		Set<String> matching_keys;
+		
+		/* -------------------- Exact Search -------------------- */
+		
+		if (!is_partial)
+		{
+			// Query Word is not in the Inverted Index
+			if (!inverted_index.has(query_word))
+			{
+				return matches;
+			}
+			
+			// The Query Word is the Only Matching Word
+			matching_keys = Set.of(query_word);
+		}
+		else
+		{
+			/* -------------------- Partial Search -------------------- */
+			
+			// Checks if the Query Word is Partially in the Inverted Index
+			matching_keys = inverted_index.getByPrefix(query_word);
+		}
+		
+		// Loop through the Stem Query Words which are in the Inverted Index
+		for (String stem_word : matching_keys)
+		{
+			// All the Documents for that Specific Stem Word that contains that Query Word: Inner Map of Inverted Index
+			Map<String, ArrayList<Integer>> docs = inverted_index.get(stem_word);
+			
+			// Loop through the Stem Word's Documents
+			for (String document : docs.keySet())
+			{
+				// Increment the Count Based on the Size of the Inverted Index's Position's ArrayList Length
+				matches.merge(document, docs.get(document).size(), Integer::sum);
+			}	
+		}
+		
+		return matches;
+	}
+	
+	/**
+	 * Adds the match counts of one query word to the match counts of a query
+	 * 
+	 * @param values is the mapping of a query's documents to its count
+	 * @param matches is the mapping of a query word's documents to its count
+	 */
+	public static void addMatches(Map<String, Integer> values, Map<String, Integer> matches)
+	{
+		// Loop through the Query Word's Documents
+		for (Map.Entry<String, Integer> match : matches.entrySet())
+		{
+			// Initialized the Count to be Zero and Increment it by the Query Word's Count
+			values.merge(match.getKey(), match.getValue(), Integer::sum);
+		}
+	}
+	
 	/**
 	 * Computes and calculates the score of each entry (queries) 
 	 * 
@@ -187,28 +344,37 @@ public class QueryReader
 		// Loop Through all the Queries
 		for (String query: query_calculation.keySet())
 		{
-			// Mapping of a Document and it's Word Count
-			TreeMap<String, Integer> docs = query_calculation.get(query);
-			
-			// Query Scores
-			TreeSet<Entry> scores = new TreeSet<Entry>();
+			this.scores.put(query, scoreQuery(query_calculation.get(query), word_count));
+		}
+	}
+	
+	/**
+	 * Computes and calculates the score of each document of one query
+	 * 
+	 * @param docs is the mapping of the query's documents to its match count
+	 * @param word_count is the mapping of a document and it's word count
+	 * @return the entries of the query sorted by score, count, and document
+	 */
+	public static TreeSet<Entry> scoreQuery(Map<String, Integer> docs, Map<String, Integer> word_count)
+	{
+		// Query Scores
+		TreeSet<Entry> scores = new TreeSet<Entry>();
+		
+		// Loop Through all the Documents of that Specific Queries
+		for (String document : docs.keySet())
+		{
+			// Count of Current Queries
+			int cur_count = docs.get(document);
 			
-			// Loop Through all the Documents of that Specific Queries
-			for (String document : docs.keySet())
-			{
-				// Count of Current Queries
-				int cur_count = query_calculation.get(query).get(document);
-				
-				// Score of Current Queries
-				double score = (double) cur_count / word_count.get(document);
-				
-				// Document of Current Queries
-				Entry cur_queries = new Entry(score, cur_count, document);
-				scores.add(cur_queries);
-			}
+			// Score of Current Queries
+			double score = (double) cur_count / word_count.get(document);
 			
-			this.scores.put(query, scores);
+			// Document of Current Queries
+			Entry cur_queries = new Entry(score, cur_count, document);
+			scores.add(cur_queries);
 		}
+		
+		return scores;
 	}
 	
 	/**
@@ -230,8 +396,16 @@ public class QueryReader
 	 * @param writer is the class file for file output string that we want to write to the file
 	 * @throws IOException if it could not read the results file
 	 */
-	public void printJson(InvertedIndex inverted_index, Map<String, Integer> word_count, Writer writer) throws IOException
+	public void printJson(SearchableIndex inverted_index, Map<String, Integer> word_count, Writer writer) throws IOException
 	{
 		PrettyJsonWriter.writeDoubleNestedArrays(scores, word_count, writer, 0);
 	}
+	
+	/**
+	 * Releases any worker threads used by the query reader. The single threaded
+	 * query reader does not use any, so there is nothing to release.
+	 */
+	public void shutdown()
+	{
+	}
 }
@@ -3,6 +3,7 @@ import java.util.ConcurrentModificationException;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
 
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
@@ -126,6 +127,33 @@ public class ReadWriteLock {
 		}
 	}
 
+	/**
+	 * Runs a short read, such as checking a size, while holding the read lock.
+	 * Locks that support optimistic reads first try it without blocking writers,
+	 * so the read should only read a single field, never walk a structure a
+	 * writer may be changing.
+	 *
+	 * @param <T> the type of the value read
+	 * @param reader reads the value
+	 * @return the value read
+	 */
+	public <T> T optimisticRead(Supplier<T> reader) {
+		read().lock();
+
+		try {
+			return reader.get();
+		}
+		finally {
+			read().unlock();
+		}
+	}
+
+	/**
+	 * Logs how contended the lock has been. This lock does not keep any metrics.
+	 */
+	public void report() {
+	}
+
 	/**
 	 * A simple lock used for conditional synchronization as an alternative to using
 	 * a {@code synchronized} block.
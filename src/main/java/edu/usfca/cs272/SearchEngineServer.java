@@ -39,29 +39,29 @@ public class SearchEngineServer
 	public static InvertedIndex inverted_index;
 	
 	/**
-	 * Lock Object Controls Access of the Shared Resources Among the Worker Threads
+	 * The Web Page's Title
 	 */
-	public static ReadWriteLock lock;
+	private static final String TITLE = "Rooster";
 	
 	/**
-	 * The Web Page's Title
+	 * Jetty Server Listening for Searches
 	 */
-	private static final String TITLE = "Rooster";
+	private final Server server;
 	
 	/**
-	 * Initializes the Server
+	 * Initializes and starts the Server. A segmented inverted index can keep
+	 * being built while the server is answering searches, since each search
+	 * reads its own snapshot of it without any locking.
 	 * 
 	 * @param inverted_index is the data structure storing the mapping from words to the documents and positions
 	 * @param port is the number associated with the IP address to communicate between devices
-	 * @throws InterruptedException if the server was interrupted
 	 * @throws Exception if the server was unable to start
 	 */
-	public SearchEngineServer(InvertedIndex inverted_index, int port) throws InterruptedException, Exception
+	public SearchEngineServer(InvertedIndex inverted_index, int port) throws Exception
 	{
 		SearchEngineServer.inverted_index = inverted_index;
 		
-		Server server = new Server(port);
-		lock = new ReadWriteLock();
+		server = new Server(port);
 		
 		ServletContextHandler handler = new ServletContextHandler();
 		handler.setContextPath("/");
@@ -84,10 +84,17 @@ public class SearchEngineServer
 		
 		// Automatically Multithreaded because Servlets typically Run on Multithreaded Servers
 		log.info("Server: {} with {} threads", server.getState(), server.getThreadPool().getThreads());
-		
-		// Wait for the Server to Finish
+	}
+	
+	/**
+	 * Waits for the Server to Finish
+	 * 
+	 * @throws InterruptedException if the server was interrupted
+	 */
+	public void join() throws InterruptedException
+	{
 		server.join();
-	}	
+	}
 
 	/**
 	 * Outputs and responds to HTML form while re-displaying form after generating result.
@@ -184,53 +191,38 @@ public class SearchEngineServer
 			
 			queries.add(clean_line);
 			
-			// Acquire the Read Lock
-			lock.read().lock();
+			// Searches and Scores the User's Query with Partial Search
+			query_reader.searchAndScore(inverted_index.snapshot(), queries, true);
 			
-			// For any case it crashes make sure you unlock it
-			try
+			// Returns the Set of Queries into a String
+			String query_key = query_reader.queryKey(clean_line);
+			
+			// Stores the Current User's Query's Count, Score, and Document
+			Set<Entry> query_score = query_reader.getResultsForOneQuery(query_key);
+			
+			// Message for No Matches for Word
+			if (query_score.isEmpty())
 			{
-				// Builds the Queries TreeMap mapping Queries to its Document and Word Count with Partial Search
-				query_reader.search(inverted_index, queries, true);
-				
-				// Computes and Calculates the Score of Current User's Query
-				query_reader.calculateScore(inverted_index.getWordCount());
+				results_html.append("No results were found");
+			}
+			
+			// Loop through the Entries
+			for (Entry entry: query_score)
+			{
+				// HTM: Tag
+				results_html.append("<a href = \"");
 				
-				// Returns the Set of Queries into a String
-				String query_key = query_reader.queryKey(clean_line);
+				// Web Link
+				results_html.append(entry.getDocument());
 				
-				// Stores the Current User's Query's Count, Score, and Document
-				Set<Entry> query_score = query_reader.getResultsForOneQuery(query_key);
+				// End of Opening HTML Tag
+				results_html.append("\">");
 				
-				// Message for No Matches for Word
-				if (query_score.isEmpty())
-				{
-					results_html.append("No results were found");
-				}
+				// Display to the User
+				results_html.append(StringEscapeUtils.escapeHtml4(entry.getDocument()));
 				
-				// Loop through the Entries
-				for (Entry entry: query_score)
-				{
-					// HTM: Tag
-					results_html.append("<a href = \"");
-					
-					// Web Link
-					results_html.append(entry.getDocument());
-					
-					// End of Opening HTML Tag
-					results_html.append("\">");
-					
-					// Display to the User
-					results_html.append(StringEscapeUtils.escapeHtml4(entry.getDocument()));
-					
-					// Closing HTML Tag and New Line
-					results_html.append("</a><p>");					
-				}
-			}
-			finally
-			{
-				// Release the Read Lock
-				lock.read().unlock();
+				// Closing HTML Tag and New Line
+				results_html.append("</a><p>");					
 			}
 		}
 		
@@ -0,0 +1,113 @@
+package edu.usfca.cs272;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Read only view of an inverted index: everything a search needs, and nothing
+ * that changes the index. Searches should get one view from
+ * {@link InvertedIndex#snapshot()} and use it for the whole search, so the
+ * word counts and the documents of each word always come from the same
+ * version of the index.
+ *
+ * @author Nino Estrada
+ * @author CS 272 Software Development (University of San Francisco)
+ * @version Fall 2022
+ *
+ */
+public interface SearchableIndex
+{
+	/**
+	 * Prints the inverted index in JSON format
+	 *
+	 * @param writer is the class file for file output string that we want to write to the file
+	 * @throws IOException if the file could not be read
+	 */
+	public void printJson(Writer writer) throws IOException;
+
+	/**
+	 * Prints the word count in JSON format
+	 *
+	 * @param writer is the class file for file output string that we want to write to the file
+	 * @throws IOException if the counts file could not be read
+	 */
+	public void printWordCountJson(Writer writer) throws IOException;
+
+	/**
+	 * @return a view only copy of the word count of each document
+	 */
+	public Map<String, Integer> getWordCount();
+
+	/**
+	 * Provides a view only copy of the inverted index's keys
+	 *
+	 * @return a set of the inverted index's keys (words)
+	 */
+	public Set<String> getKeys();
+
+	/**
+	 * Provides a view only copy of the documents in the inverted index
+	 *
+	 * @return a set of the documents with at least one word
+	 */
+	public Set<String> getDocuments();
+
+	/**
+	 * Provides the size of the inverted index
+	 *
+	 * @return the size of the inverted index
+	 */
+	public int size();
+
+	/**
+	 * Provides the size of the inner map
+	 *
+	 * @param word is a key of the inverted index
+	 * @return the size of the inner map
+	 */
+	public int size(String word);
+
+	/**
+	 * Provides a view only copy of the inverted index of a particular word
+	 *
+	 * @param word is the key searching its values
+	 * @return the documents and position(s) of the word, or null if the word is not in the index
+	 */
+	public Map<String, ArrayList<Integer>> get(String word);
+
+	/**
+	 * Provides a view only copy of the inverted index
+	 *
+	 * @return the inverted index
+	 */
+	public Collection<String> view();
+
+	/**
+	 * Getting All entries whose keys start with this query word
+	 *
+	 * @param query_word is the current query word
+	 * @return a set of keys that matches/starts with the passed in query word
+	 */
+	public Set<String> getByPrefix(String query_word);
+
+	/**
+	 * Checks if the word is in the inverted index
+	 *
+	 * @param word is the key of the inverted index
+	 * @return true if the word is in the inverted index
+	 */
+	public boolean has(String word);
+
+	/**
+	 * Checks if the word is in the document
+	 *
+	 * @param word is the key of the inverted index
+	 * @param document is the value of the inverted index
+	 * @return true if the word is in the document
+	 */
+	public boolean has(String word, String document);
+}
@@ -0,0 +1,1097 @@
+package edu.usfca.cs272;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.net.URL;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Multithreaded inverted index split into segments, so searches never wait for
+ * writers. New documents are added to a small in-memory segment that only the
+ * writers see. It is flushed into an immutable segment once it holds enough
+ * documents, or periodically by a background thread, which also merges
+ * segments of similar size together. Removing a document marks it deleted in
+ * the segment holding it, and merges drop it for good.
+ *
+ * Searches use a {@link #snapshot()}: the segments published at that moment,
+ * which never change afterwards. New documents become visible once their
+ * segment is flushed. The read methods of the index itself each read the
+ * latest snapshot on their own, so two of them may see different versions:
+ * a search must take one snapshot and read only from it.
+ *
+ * @author Nino Estrada
+ * @author CS 272 Software Development (University of San Francisco)
+ * @version Fall 2022
+ *
+ */
+public class SegmentedInvertedIndex extends MTInvertedIndex
+{
+	/** Logger used for this class. */
+	private static final Logger log = LogManager.getLogger();
+
+	/**
+	 * Default Number of Documents in a Segment Before it is Flushed
+	 */
+	public static final int DEFAULT_SEGMENT_SIZE = 64;
+
+	/**
+	 * Number of Segments of the Same Size Merged Together
+	 */
+	private static final int MERGE_FACTOR = 4;
+
+	/**
+	 * Milliseconds Between Two Background Flushes and Merges
+	 */
+	private static final long MERGE_INTERVAL = 1000;
+
+	/**
+	 * Number of Documents in a Segment Before it is Flushed
+	 */
+	private final int segment_size;
+
+	/**
+	 * Segment New Documents are Added to: Only Seen by the Writers, Under the Write Lock
+	 */
+	private InvertedIndex memtable;
+
+	/**
+	 * Immutable Segments Searches Can See, Replaced as a Whole Whenever they Change
+	 */
+	private volatile Snapshot published;
+
+	/**
+	 * Background Thread Flushing and Merging the Segments
+	 */
+	private final Timer merger;
+
+	/**
+	 * Instantiates the segments, the work queue, and the background merging
+	 *
+	 * @param threads is the number of worker threads
+	 * @param max_crawl is the total number of URLs to crawl
+	 * @param fetchers is the number of pages fetched at once across all hosts
+	 * @param host_limit is the number of pages fetched at once from one host
+	 * @param delay is the number of milliseconds between two fetches from the same host
+	 * @param segment_size is the number of documents in a segment before it is flushed
+	 */
+	public SegmentedInvertedIndex(int threads, int max_crawl, int fetchers, int host_limit, long delay, int segment_size)
+	{
+		this(new WorkQueue(threads), max_crawl, fetchers, host_limit, delay, segment_size);
+		owns_queue = true;
+	}
+
+	/**
+	 * Instantiates the segments and the background merging, parsing and
+	 * indexing with the given work queue
+	 *
+	 * @param multithreading is the work queue parsing and indexing
+	 * @param max_crawl is the total number of URLs to crawl
+	 * @param fetchers is the number of pages fetched at once across all hosts
+	 * @param host_limit is the number of pages fetched at once from one host
+	 * @param delay is the number of milliseconds between two fetches from the same host
+	 * @param segment_size is the number of documents in a segment before it is flushed
+	 */
+	public SegmentedInvertedIndex(WorkQueue multithreading, int max_crawl, int fetchers, int host_limit, long delay, int segment_size)
+	{
+		this(multithreading, new ReadWriteLock(), max_crawl, fetchers, host_limit, delay, segment_size);
+	}
+
+	/**
+	 * Instantiates the segments and the background merging, guarded by the
+	 * given lock and parsing and indexing with the given work queue. The lock is
+	 * set before the background merging starts, so it always uses the same lock.
+	 *
+	 * @param multithreading is the work queue parsing and indexing
+	 * @param lock is the lock guarding the segments
+	 * @param max_crawl is the total number of URLs to crawl
+	 * @param fetchers is the number of pages fetched at once across all hosts
+	 * @param host_limit is the number of pages fetched at once from one host
+	 * @param delay is the number of milliseconds between two fetches from the same host
+	 * @param segment_size is the number of documents in a segment before it is flushed
+	 */
+	public SegmentedInvertedIndex(WorkQueue multithreading, ReadWriteLock lock, int max_crawl, int fetchers, int host_limit, long delay, int segment_size)
+	{
+		super(multithreading, lock, max_crawl, fetchers, host_limit, delay);
+
+		this.segment_size = segment_size;
+		memtable = new InvertedIndex();
+		published = new Snapshot(List.of());
+
+		merger = new Timer("SegmentMerger", true);
+
+		merger.schedule(new TimerTask()
+		{
+			@Override
+			public void run()
+			{
+				// An Exception Escaping Would Cancel the Timer and Stop Every Later Flush
+				try
+				{
+					flush();
+					mergeSegments();
+				}
+				catch (RuntimeException e)
+				{
+					log.warn("Could not flush or merge the segments.", e);
+				}
+			}
+		}, MERGE_INTERVAL, MERGE_INTERVAL);
+	}
+
+	/**
+	 * Stops the background flushing and merging, publishing any documents not
+	 * flushed yet, then terminates the worker threads if this inverted index
+	 * started them. Searches can still use the segments afterwards.
+	 */
+	@Override
+	public void shutdown()
+	{
+		merger.cancel();
+		flush();
+		super.shutdown();
+	}
+
+	/**
+	 * Provides the documents and words searches can see right now. The snapshot
+	 * never changes, even as documents are added, removed, and merged, so it can
+	 * be searched without any locking.
+	 *
+	 * @return a read only view of the published segments
+	 */
+	@Override
+	public SearchableIndex snapshot()
+	{
+		return published;
+	}
+
+	/**
+	 * Publishes a new version of the segments. Searches already reading the
+	 * previous version keep reading it.
+	 *
+	 * @param segments is the segments searches can see from now on
+	 */
+	private void publish(List<Segment> segments)
+	{
+		published = new Snapshot(List.copyOf(segments));
+	}
+
+	/**
+	 * Publishes the documents added so far as a new immutable segment, so
+	 * searches can see them
+	 */
+	public void flush()
+	{
+		lock.write().lock();
+
+		try
+		{
+			// Nothing New to Publish
+			if (memtable.getDocuments().isEmpty())
+			{
+				return;
+			}
+
+			ArrayList<Segment> segments = new ArrayList<>(published.segments);
+			segments.add(new Segment(memtable, Set.of()));
+
+			publish(segments);
+			memtable = new InvertedIndex();
+		}
+		finally
+		{
+			lock.write().unlock();
+		}
+	}
+
+	/**
+	 * Merges segments of the same size tier until no tier holds
+	 * {@link #MERGE_FACTOR} segments. The merged segment is built without
+	 * holding the write lock; only swapping it in does.
+	 */
+	private void mergeSegments()
+	{
+		List<Segment> merging;
+
+		while (!(merging = pickMerge(published.segments)).isEmpty())
+		{
+			// Deleted Documents are Dropped for Good
+			InvertedIndex merged = new InvertedIndex(false);
+
+			for (Segment segment : merging)
+			{
+				for (String word : segment.index.getKeys())
+				{
+					for (Map.Entry<String, ArrayList<Integer>> document : segment.index.get(word).entrySet())
+					{
+						if (!segment.deleted.contains(document.getKey()))
+						{
+							for (Integer position : document.getValue())
+							{
+								merged.add(word, document.getKey(), position);
+							}
+						}
+					}
+				}
+			}
+
+			lock.write().lock();
+
+			try
+			{
+				ArrayList<Segment> segments = new ArrayList<>();
+				HashSet<String> deleted = new HashSet<>();
+				int first = -1;
+
+				for (Segment segment : published.segments)
+				{
+					Segment source = findSource(merging, segment);
+
+					if (source == null)
+					{
+						segments.add(segment);
+						continue;
+					}
+
+					// Documents Deleted While the Merge was Built
+					for (String document : segment.deleted)
+					{
+						if (!source.deleted.contains(document))
+						{
+							deleted.add(document);
+						}
+					}
+
+					if (first < 0)
+					{
+						first = segments.size();
+					}
+				}
+
+				segments.add(first, new Segment(merged, deleted));
+				publish(segments);
+			}
+			finally
+			{
+				lock.write().unlock();
+			}
+		}
+	}
+
+	/**
+	 * Picks the segments to merge: the first {@link #MERGE_FACTOR} segments of
+	 * the smallest size tier holding that many. A segment's tier grows by one each
+	 * time its number of documents grows by a factor of {@link #MERGE_FACTOR}.
+	 *
+	 * @param current is the published segments
+	 * @return the segments to merge, or an empty list if no tier is full
+	 */
+	private List<Segment> pickMerge(List<Segment> current)
+	{
+		TreeMap<Integer, List<Segment>> tiers = new TreeMap<>();
+
+		for (Segment segment : current)
+		{
+			int tier = 0;
+
+			for (long limit = (long) segment_size * MERGE_FACTOR; segment.size() >= limit; limit *= MERGE_FACTOR)
+			{
+				tier++;
+			}
+
+			tiers.computeIfAbsent(tier, key -> new ArrayList<>()).add(segment);
+		}
+
+		for (List<Segment> tier : tiers.values())
+		{
+			if (tier.size() >= MERGE_FACTOR)
+			{
+				return tier.subList(0, MERGE_FACTOR);
+			}
+		}
+
+		return List.of();
+	}
+
+	/**
+	 * Finds the segment a published segment was made from, since marking a
+	 * document deleted publishes a new segment sharing the same index
+	 *
+	 * @param merging is the segments being merged
+	 * @param segment is a published segment
+	 * @return the segment being merged with the same index, or null if there is none
+	 */
+	private static Segment findSource(List<Segment> merging, Segment segment)
+	{
+		for (Segment source : merging)
+		{
+			if (source.index == segment.index)
+			{
+				return source;
+			}
+		}
+
+		return null;
+	}
+
+	@Override
+	public void add(String word)
+	{
+		lock.write().lock();
+
+		try
+		{
+			memtable.add(word);
+		}
+		finally
+		{
+			lock.write().unlock();
+		}
+	}
+
+	@Override
+	public void add(String word, String document, int position)
+	{
+		lock.write().lock();
+
+		try
+		{
+			memtable.add(word, document, position);
+		}
+		finally
+		{
+			lock.write().unlock();
+		}
+	}
+
+	/**
+	 * Adds the files to the inverted index, and publishes them once they are all added
+	 *
+	 * @param path_sizes is a map from each file to its size in bytes
+	 * @throws IOException if there is an IO error
+	 */
+	@Override
+	public void add(Map<Path, Long> path_sizes) throws IOException
+	{
+		super.add(path_sizes);
+		flush();
+	}
+
+	/**
+	 * Adds the source files under the path to the inverted index, and publishes
+	 * them once they are all added
+	 *
+	 * @param path a text file or a directory
+	 * @throws NoSuchFileException if the path does not exist
+	 * @throws IOException if there is an IO error
+	 */
+	@Override
+	public void addText(Path path) throws NoSuchFileException, IOException
+	{
+		super.addText(path);
+		flush();
+	}
+
+	/**
+	 * Crawls from the seed URL, and publishes the crawled pages once the crawl finishes
+	 *
+	 * @param seed is the starting URL for web crawling
+	 * @throws IOException if there is an IO error
+	 */
+	@Override
+	public void addHtml(URL seed) throws IOException
+	{
+		super.addHtml(seed);
+		flush();
+	}
+
+	/**
+	 * Merges the values of the thread inverted index into the segment new
+	 * documents are added to, flushing the segment once it is full
+	 *
+	 * @param thread_inverted_index is the current thread's inverted index
+	 */
+	@Override
+	public void merge(InvertedIndex thread_inverted_index)
+	{
+		lock.write().lock();
+
+		try
+		{
+			for (String word : thread_inverted_index.getKeys())
+			{
+				for (Map.Entry<String, ArrayList<Integer>> document : thread_inverted_index.get(word).entrySet())
+				{
+					for (Integer position : document.getValue())
+					{
+						memtable.add(word, document.getKey(), position);
+					}
+				}
+			}
+
+			if (memtable.getDocuments().size() >= segment_size)
+			{
+				flush();
+			}
+		}
+		finally
+		{
+			lock.write().unlock();
+		}
+	}
+
+	/**
+	 * Removes a document from the segment new documents are added to, and marks
+	 * it deleted in the published segment holding it
+	 *
+	 * @param document is the name of the document to remove
+	 * @return true if the document was in the inverted index
+	 */
+	@Override
+	public boolean remove(String document)
+	{
+		lock.write().lock();
+
+		try
+		{
+			boolean removed = memtable.remove(document);
+
+			ArrayList<Segment> segments = new ArrayList<>(published.segments.size());
+
+			for (Segment segment : published.segments)
+			{
+				if (segment.has(document))
+				{
+					HashSet<String> deleted = new HashSet<>(segment.deleted);
+					deleted.add(document);
+
+					segment = new Segment(segment.index, deleted);
+					removed = true;
+				}
+
+				segments.add(segment);
+			}
+
+			if (removed)
+			{
+				publish(segments);
+			}
+
+			return removed;
+		}
+		finally
+		{
+			lock.write().unlock();
+		}
+	}
+
+	/**
+	 * Replaces the words of 1 entire document. Searches stop seeing the old
+	 * words right away and see the new words once their segment is flushed.
+	 *
+	 * @param document is the name of the document to replace
+	 * @param list is the new words of the document, in order
+	 * @return true if the document was in the inverted index before
+	 */
+	@Override
+	public boolean replace(String document, ArrayList<String> list)
+	{
+		lock.write().lock();
+
+		try
+		{
+			boolean removed = remove(document);
+
+			memtable.add(list, document);
+
+			return removed;
+		}
+		finally
+		{
+			lock.write().unlock();
+		}
+	}
+
+	/**
+	 * Publishes every document added so far and copies them
+	 *
+	 * @return a deep copy of the mapping from words to the documents and positions
+	 */
+	@Override
+	protected TreeMap<String, TreeMap<String, ArrayList<Integer>>> copyIndex()
+	{
+		flush();
+
+		return published.copy();
+	}
+
+	@Override
+	public void printJson(Writer writer) throws IOException
+	{
+		snapshot().printJson(writer);
+	}
+
+	@Override
+	public void printWordCountJson(Writer writer) throws IOException
+	{
+		snapshot().printWordCountJson(writer);
+	}
+
+	@Override
+	public Map<String, Integer> getWordCount()
+	{
+		return snapshot().getWordCount();
+	}
+
+	@Override
+	public Set<String> getKeys()
+	{
+		return snapshot().getKeys();
+	}
+
+	@Override
+	public Set<String> getDocuments()
+	{
+		return snapshot().getDocuments();
+	}
+
+	@Override
+	public int size()
+	{
+		return snapshot().size();
+	}
+
+	@Override
+	public int size(String word)
+	{
+		return snapshot().size(word);
+	}
+
+	@Override
+	public Map<String, ArrayList<Integer>> get(String word)
+	{
+		return snapshot().get(word);
+	}
+
+	@Override
+	public Collection<String> view()
+	{
+		return snapshot().view();
+	}
+
+	@Override
+	public Set<String> getByPrefix(String query_word)
+	{
+		return snapshot().getByPrefix(query_word);
+	}
+
+	@Override
+	public boolean has(String word)
+	{
+		return snapshot().has(word);
+	}
+
+	@Override
+	public boolean has(String word, String document)
+	{
+		return snapshot().has(word, document);
+	}
+
+	/**
+	 * Immutable segment: an inverted index that is never changed once published,
+	 * and the documents in it that were deleted since
+	 */
+	private static class Segment
+	{
+		/**
+		 * Words, Documents, and Positions of the Segment
+		 */
+		private final InvertedIndex index;
+
+		/**
+		 * Documents of the Segment that were Deleted
+		 */
+		private final Set<String> deleted;
+
+		/**
+		 * Instantiates the segment
+		 *
+		 * @param index is the words, documents, and positions of the segment
+		 * @param deleted is the documents of the segment that were deleted
+		 */
+		private Segment(InvertedIndex index, Set<String> deleted)
+		{
+			this.index = index;
+			this.deleted = deleted;
+		}
+
+		/**
+		 * Checks if the document is in the segment and was not deleted
+		 *
+		 * @param document is the name of the document
+		 * @return true if the document is in the segment
+		 */
+		private boolean has(String document)
+		{
+			return !deleted.contains(document) && index.getDocuments().contains(document);
+		}
+
+		/**
+		 * Provides the documents of the word that were not deleted
+		 *
+		 * @param word is a word of the segment
+		 * @return the documents and positions of the word, or null if there are none
+		 */
+		private Map<String, ArrayList<Integer>> get(String word)
+		{
+			Map<String, ArrayList<Integer>> documents = index.get(word);
+
+			if (documents == null || deleted.isEmpty())
+			{
+				return documents;
+			}
+
+			// Deleted Documents are Skipped as they are Read, Never Copied Out
+			LiveDocuments live = new LiveDocuments(documents, deleted);
+
+			return live.isEmpty() ? null : live;
+		}
+
+		/**
+		 * Provides the number of documents in the segment that were not deleted
+		 *
+		 * @return the number of documents
+		 */
+		private int size()
+		{
+			return index.getDocuments().size() - deleted.size();
+		}
+	}
+
+	/**
+	 * Read only view of the documents of a word in a segment that skips the
+	 * deleted documents, so looking up a word never copies its documents
+	 */
+	private static class LiveDocuments extends AbstractMap<String, ArrayList<Integer>>
+	{
+		/**
+		 * Documents and Positions of the Word, Including the Deleted Documents
+		 */
+		private final Map<String, ArrayList<Integer>> documents;
+
+		/**
+		 * Documents of the Segment that were Deleted
+		 */
+		private final Set<String> deleted;
+
+		/**
+		 * Instantiates the view
+		 *
+		 * @param documents is the documents and positions of the word
+		 * @param deleted is the documents of the segment that were deleted
+		 */
+		private LiveDocuments(Map<String, ArrayList<Integer>> documents, Set<String> deleted)
+		{
+			this.documents = documents;
+			this.deleted = deleted;
+		}
+
+		@Override
+		public Set<Map.Entry<String, ArrayList<Integer>>> entrySet()
+		{
+			return new AbstractSet<>()
+			{
+				@Override
+				public Iterator<Map.Entry<String, ArrayList<Integer>>> iterator()
+				{
+					return documents.entrySet().stream()
+							.filter(document -> !deleted.contains(document.getKey()))
+							.iterator();
+				}
+
+				@Override
+				public int size()
+				{
+					return LiveDocuments.this.size();
+				}
+			};
+		}
+
+		/**
+		 * Provides the number of documents of the word that were not deleted,
+		 * looping over whichever is smaller: the documents or the deleted ones
+		 *
+		 * @return the number of documents
+		 */
+		@Override
+		public int size()
+		{
+			int size = 0;
+
+			if (deleted.size() < documents.size())
+			{
+				size = documents.size();
+
+				for (String document : deleted)
+				{
+					if (documents.containsKey(document))
+					{
+						size--;
+					}
+				}
+			}
+			else
+			{
+				for (String document : documents.keySet())
+				{
+					if (!deleted.contains(document))
+					{
+						size++;
+					}
+				}
+			}
+
+			return size;
+		}
+
+		/**
+		 * Checks if every document of the word was deleted, stopping at the first
+		 * one that was not
+		 *
+		 * @return true if no document of the word is left
+		 */
+		@Override
+		public boolean isEmpty()
+		{
+			for (String document : documents.keySet())
+			{
+				if (!deleted.contains(document))
+				{
+					return false;
+				}
+			}
+
+			return true;
+		}
+
+		@Override
+		public boolean containsKey(Object document)
+		{
+			return !deleted.contains(document) && documents.containsKey(document);
+		}
+
+		@Override
+		public ArrayList<Integer> get(Object document)
+		{
+			return deleted.contains(document) ? null : documents.get(document);
+		}
+	}
+
+	/**
+	 * Read only inverted index of the segments published at one moment. Each
+	 * document is in exactly one of the segments, so the segments' documents
+	 * and word counts are combined without any overlap.
+	 */
+	private static class Snapshot implements SearchableIndex
+	{
+		/**
+		 * Segments Published When the Snapshot was Taken
+		 */
+		private final List<Segment> segments;
+
+		/**
+		 * Word Counts of All the Segments, Combined the First Time they are Needed
+		 */
+		private volatile Map<String, Integer> word_count;
+
+		/**
+		 * Words of All the Segments, Combined the First Time they are Needed
+		 */
+		private volatile Set<String> words;
+
+		/**
+		 * Instantiates the snapshot
+		 *
+		 * @param segments is the segments published when the snapshot was taken
+		 */
+		private Snapshot(List<Segment> segments)
+		{
+			this.segments = segments;
+		}
+
+		/**
+		 * Copies the words, documents, and positions of all the segments
+		 *
+		 * @return a deep copy of the mapping from words to the documents and positions
+		 */
+		private TreeMap<String, TreeMap<String, ArrayList<Integer>>> copy()
+		{
+			TreeMap<String, TreeMap<String, ArrayList<Integer>>> copy = new TreeMap<>();
+
+			for (Segment segment : segments)
+			{
+				for (String word : segment.index.getKeys())
+				{
+					Map<String, ArrayList<Integer>> documents = segment.get(word);
+
+					if (documents == null)
+					{
+						continue;
+					}
+
+					TreeMap<String, ArrayList<Integer>> combined = copy.computeIfAbsent(word, key -> new TreeMap<>());
+
+					for (Map.Entry<String, ArrayList<Integer>> document : documents.entrySet())
+					{
+						combined.put(document.getKey(), new ArrayList<>(document.getValue()));
+					}
+				}
+			}
+
+			return copy;
+		}
+
+		@Override
+		public void printJson(Writer writer) throws IOException
+		{
+			PrettyJsonWriter.writeDoubleNestedArrays(copy(), writer, 0);
+		}
+
+		@Override
+		public void printWordCountJson(Writer writer) throws IOException
+		{
+			PrettyJsonWriter.writeObject(getWordCount(), writer, 0);
+		}
+
+		@Override
+		public Map<String, Integer> getWordCount()
+		{
+			// Every Search Needs the Word Counts: Only Combine them Once per Snapshot
+			if (word_count == null)
+			{
+				word_count = combineWordCounts();
+			}
+
+			return word_count;
+		}
+
+		/**
+		 * Combines the word counts of the documents of all the segments that were not deleted
+		 *
+		 * @return a view only mapping of the documents to their word counts
+		 */
+		private Map<String, Integer> combineWordCounts()
+		{
+			TreeMap<String, Integer> word_count = new TreeMap<>();
+
+			for (Segment segment : segments)
+			{
+				for (Map.Entry<String, Integer> count : segment.index.getWordCount().entrySet())
+				{
+					if (!segment.deleted.contains(count.getKey()))
+					{
+						word_count.put(count.getKey(), count.getValue());
+					}
+				}
+			}
+
+			return Collections.unmodifiableMap(word_count);
+		}
+
+		@Override
+		public Set<String> getKeys()
+		{
+			// The Size is Read Often: Only Combine the Words Once per Snapshot
+			if (words == null)
+			{
+				words = combineWords();
+			}
+
+			return words;
+		}
+
+		/**
+		 * Combines the words of all the segments that still have a document which
+		 * was not deleted
+		 *
+		 * @return a view only set of the words
+		 */
+		private Set<String> combineWords()
+		{
+			// Nothing to Combine or Leave Out: the Segment Never Changes
+			if (segments.size() == 1 && segments.get(0).deleted.isEmpty())
+			{
+				return segments.get(0).index.getKeys();
+			}
+
+			TreeSet<String> words = new TreeSet<>();
+
+			for (Segment segment : segments)
+			{
+				addWords(words, segment, segment.index.getKeys());
+			}
+
+			return Collections.unmodifiableSet(words);
+		}
+
+		@Override
+		public Set<String> getDocuments()
+		{
+			TreeSet<String> documents = new TreeSet<>();
+
+			for (Segment segment : segments)
+			{
+				for (String document : segment.index.getDocuments())
+				{
+					if (!segment.deleted.contains(document))
+					{
+						documents.add(document);
+					}
+				}
+			}
+
+			return Collections.unmodifiableSet(documents);
+		}
+
+		/**
+		 * Provides the number of words, combining the words of the segments only
+		 * the first time
+		 *
+		 * @return the number of words in the snapshot
+		 */
+		@Override
+		public int size()
+		{
+			return getKeys().size();
+		}
+
+		@Override
+		public int size(String word)
+		{
+			return get(word).size();
+		}
+
+		@Override
+		public Map<String, ArrayList<Integer>> get(String word)
+		{
+			Map<String, ArrayList<Integer>> found = null;
+			TreeMap<String, ArrayList<Integer>> combined = null;
+
+			for (Segment segment : segments)
+			{
+				Map<String, ArrayList<Integer>> documents = segment.get(word);
+
+				if (documents == null)
+				{
+					continue;
+				}
+
+				// Only Copied Once a Second Segment has the Word
+				if (found == null)
+				{
+					found = documents;
+					continue;
+				}
+
+				if (combined == null)
+				{
+					combined = new TreeMap<>(found);
+				}
+
+				combined.putAll(documents);
+			}
+
+			if (combined != null)
+			{
+				return Collections.unmodifiableMap(combined);
+			}
+
+			return found == null ? null : Collections.unmodifiableMap(found);
+		}
+
+		@Override
+		public Collection<String> view()
+		{
+			return getKeys();
+		}
+
+		@Override
+		public Set<String> getByPrefix(String query_word)
+		{
+			TreeSet<String> words = new TreeSet<>();
+
+			for (Segment segment : segments)
+			{
+				addWords(words, segment, segment.index.getByPrefix(query_word));
+			}
+
+			return Collections.unmodifiableSet(words);
+		}
+
+		/**
+		 * Adds the words of a segment that still have a document which was not deleted
+		 *
+		 * @param words is the words found so far
+		 * @param segment is the segment the words are from
+		 * @param found is the words of the segment to add
+		 */
+		private static void addWords(Set<String> words, Segment segment, Set<String> found)
+		{
+			for (String word : found)
+			{
+				if (!words.contains(word) && segment.get(word) != null)
+				{
+					words.add(word);
+				}
+			}
+		}
+
+		@Override
+		public boolean has(String word)
+		{
+			for (Segment segment : segments)
+			{
+				if (segment.get(word) != null)
+				{
+					return true;
+				}
+			}
+
+			return false;
+		}
+
+		@Override
+		public boolean has(String word, String document)
+		{
+			for (Segment segment : segments)
+			{
+				Map<String, ArrayList<Integer>> documents = segment.get(word);
+
+				if (documents != null && documents.containsKey(document))
+				{
+					return true;
+				}
+			}
+
+			return false;
+		}
+
+	}
+}
@@ -0,0 +1,293 @@
+package edu.usfca.cs272;
+
+import java.util.ConcurrentModificationException;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Supplier;
+
+/**
+ * Read/write lock backed by a {@link StampedLock}. Readers only update the
+ * lock's state with a compare-and-set instead of entering a shared monitor,
+ * and short reads can be optimistic: they run without any lock and are only
+ * retried under the read lock if a writer got in the way. Like
+ * {@link ReadWriteLock}, the active writer can acquire read or write locks
+ * again, which a plain stamped lock does not allow.
+ *
+ * @author Nino Estrada
+ * @author CS 272 Software Development (University of San Francisco)
+ * @version Fall 2022
+ *
+ */
+public class StampedReadWriteLock extends ReadWriteLock
+{
+	/**
+	 * Lock Holding the Read and Write State
+	 */
+	private final StampedLock stamped;
+
+	/**
+	 * Thread Holding the Write Lock
+	 */
+	private volatile Thread active_writer;
+
+	/**
+	 * Stamp of the Write Lock, Only Used by the Active Writer
+	 */
+	private long write_stamp;
+
+	/**
+	 * Number of Write Locks Held by the Active Writer
+	 */
+	private int writers;
+
+	/**
+	 * Number of Read Locks Held by the Active Writer, which Never Touch the Stamped Lock
+	 */
+	private int writer_reads;
+
+	/**
+	 * Lock Used for Reading
+	 */
+	private final SimpleLock read_lock;
+
+	/**
+	 * Lock Used for Writing
+	 */
+	private final SimpleLock write_lock;
+
+	/**
+	 * How Contended the Lock is
+	 */
+	private final LockMetrics metrics;
+
+	/**
+	 * Instantiates the lock
+	 */
+	public StampedReadWriteLock()
+	{
+		stamped = new StampedLock();
+		read_lock = new ReadLock();
+		write_lock = new WriteLock();
+		metrics = new LockMetrics("Stamped");
+	}
+
+	@Override
+	public SimpleLock read()
+	{
+		return read_lock;
+	}
+
+	@Override
+	public SimpleLock write()
+	{
+		return write_lock;
+	}
+
+	@Override
+	public int readers()
+	{
+		return stamped.getReadLockCount();
+	}
+
+	@Override
+	public int writers()
+	{
+		return stamped.isWriteLocked() ? 1 : 0;
+	}
+
+	@Override
+	public boolean isActiveWriter()
+	{
+		return Thread.currentThread().equals(active_writer);
+	}
+
+	/**
+	 * Runs a short read without any lock, and again under the read lock only if a
+	 * writer was active before or during it. The read must not change anything,
+	 * and must tolerate seeing data part way through a write, such as by throwing
+	 * an exception, which is then ignored. The read is only validated once it
+	 * returns, so it must not follow links a writer may be changing, such as the
+	 * nodes of a tree, which could loop forever: reading a single field, such as
+	 * a size, is safe.
+	 *
+	 * @param <T> the type of the value read
+	 * @param reader reads the value
+	 * @return the value read
+	 */
+	@Override
+	public <T> T optimisticRead(Supplier<T> reader)
+	{
+		long stamp = stamped.tryOptimisticRead();
+
+		// The Active Writer Already Excludes Everyone Else
+		if (stamp != 0 || isActiveWriter())
+		{
+			try
+			{
+				T value = reader.get();
+
+				if (isActiveWriter() || stamped.validate(stamp))
+				{
+					return value;
+				}
+			}
+			catch (RuntimeException e)
+			{
+				// Only Trusted if Validated, so Retry Under the Read Lock
+				if (!stamped.validate(stamp))
+				{
+					return super.optimisticRead(reader);
+				}
+
+				throw e;
+			}
+		}
+
+		return super.optimisticRead(reader);
+	}
+
+	/**
+	 * @return how contended the lock is
+	 */
+	public LockMetrics getMetrics()
+	{
+		return metrics;
+	}
+
+	@Override
+	public void report()
+	{
+		metrics.report();
+	}
+
+	/**
+	 * Used to maintain simultaneous read operations.
+	 */
+	private class ReadLock implements SimpleLock
+	{
+		@Override
+		public void lock()
+		{
+			if (isActiveWriter())
+			{
+				writer_reads++;
+				return;
+			}
+
+			if (stamped.tryReadLock() == 0)
+			{
+				long start = metrics.startWaiting();
+
+				try
+				{
+					stamped.readLock();
+				}
+				finally
+				{
+					metrics.stopWaiting(start, false);
+				}
+			}
+		}
+
+		/**
+		 * Releases the read lock
+		 *
+		 * @throws IllegalStateException if the thread holds no read lock
+		 */
+		@Override
+		public void unlock() throws IllegalStateException
+		{
+			if (isActiveWriter() && writer_reads > 0)
+			{
+				writer_reads--;
+				return;
+			}
+
+			if (!stamped.tryUnlockRead())
+			{
+				throw new IllegalStateException();
+			}
+		}
+	}
+
+	/**
+	 * Used to maintain exclusive write operations.
+	 */
+	private class WriteLock implements SimpleLock
+	{
+		@Override
+		public void lock()
+		{
+			if (isActiveWriter())
+			{
+				writers++;
+				return;
+			}
+
+			long stamp = stamped.tryWriteLock();
+
+			if (stamp == 0)
+			{
+				long start = metrics.startWaiting();
+
+				try
+				{
+					stamp = stamped.writeLock();
+				}
+				finally
+				{
+					metrics.stopWaiting(start, true);
+				}
+			}
+
+			write_stamp = stamp;
+			writers = 1;
+			active_writer = Thread.currentThread();
+		}
+
+		/**
+		 * Releases the write lock once it was released as many times as it was
+		 * acquired. Read locks the writer still holds then become ordinary read
+		 * locks, so the writer can release them after the write lock.
+		 *
+		 * @throws IllegalStateException if no writers to unlock
+		 * @throws ConcurrentModificationException if called by a thread that does not hold the write lock
+		 */
+		@Override
+		public void unlock() throws IllegalStateException, ConcurrentModificationException
+		{
+			if (!isActiveWriter())
+			{
+				if (!stamped.isWriteLocked())
+				{
+					throw new IllegalStateException();
+				}
+
+				throw new ConcurrentModificationException();
+			}
+
+			writers--;
+
+			if (writers == 0)
+			{
+				active_writer = null;
+
+				if (writer_reads == 0)
+				{
+					stamped.unlockWrite(write_stamp);
+				}
+				else
+				{
+					// Downgrade: Read Locks Taken While Writing Become Real Read Locks
+					stamped.tryConvertToReadLock(write_stamp);
+
+					for (int i = 1; i < writer_reads; i++)
+					{
+						stamped.tryReadLock();
+					}
+
+					writer_reads = 0;
+				}
+			}
+		}
+	}
+}
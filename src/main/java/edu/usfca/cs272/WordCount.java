@@ -50,6 +50,16 @@ public class WordCount
 		}
 	}
 	
+	/**
+	 * Removes the word count of a specific document
+	 * 
+	 * @param document is the key to remove
+	 */
+	public void remove(String document)
+	{
+		word_count.remove(document);
+	}
+	
 	/**
 	 * @return a view only copy of the word count TreeMap
 	 */
@@ -1,6 +1,15 @@
 package edu.usfca.cs272;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -10,6 +19,17 @@ import org.apache.logging.log4j.Logger;
  * Brian Goetz. It is up to the user of this class to keep track of whether
  * there is any pending work remaining.
  *
+ * <p>
+ * The queue can instead be backed by a {@link ForkJoinPool}, where each worker
+ * has its own deque of tasks and idle workers steal from busy ones. Tasks
+ * submitted from inside a worker, such as the links found while crawling, then
+ * go on that worker's own deque without touching a shared lock.
+ *
+ * <p>
+ * The queue can also be bounded. Once it holds that many tasks that have not
+ * started, other threads wait to add more, while the queue's own workers run
+ * the task themselves instead of waiting on the workers that would free space.
+ *
  * @see <a href=
  *   "https://web.archive.org/web/20210126172022/https://www.ibm.com/developerworks/library/j-jtp0730/index.html">
  *   Java Theory and Practice: Thread Pools and Work Queues</a>
@@ -26,8 +46,17 @@ public class WorkQueue
 	/** Queue of pending work (or tasks). */
 	private final LinkedList<Runnable> tasks;
 
-	/** Pending Variable */
-	private int pending = 0;
+	/** Work stealing workers, or null if the shared queue is used. */
+	private final ForkJoinPool pool;
+
+	/** Space left for tasks that have not started, or null if the queue is unbounded. */
+	private final Semaphore space;
+
+	/** Most tasks that can wait to start at once. */
+	private final int capacity;
+
+	/** Pending Variable: Only Locked when Waiting for it to Reach Zero */
+	private final AtomicInteger pending = new AtomicInteger();
 
 	/** Used to signal the workers should terminate. */
 	private volatile boolean shutdown;
@@ -35,29 +64,35 @@ public class WorkQueue
 	/** The default number of worker threads to use when not specified. */
 	public static final int DEFAULT = 5;
 
+	/** The default number of tasks a bounded queue holds when not specified. */
+	public static final int DEFAULT_CAPACITY = 1024;
+
 	/** Logger used for this class. */
 	private static final Logger log = LogManager.getLogger();
 
 	/**
 	 * Safely increments the shared pending variable.
 	 */
-	private synchronized void incrementPending()
+	private void incrementPending()
 	{
-		pending += 1;
+		pending.incrementAndGet();
 	}
 
 	/**
 	 * Safely decrements the shared pending variable, and wakes up any threads
 	 * waiting for work to be completed.
 	 */
-	private synchronized void decrementPending()
+	private void decrementPending()
 	{
-		assert pending > 0;
-		pending -= 1;
+		int remaining = pending.decrementAndGet();
+		assert remaining >= 0;
 
-		if (pending == 0)
+		if (remaining == 0)
 		{
-			this.notifyAll();
+			synchronized (this)
+			{
+				this.notifyAll();
+			}
 		}
 	}
 
@@ -77,10 +112,55 @@ public class WorkQueue
 	 * @param threads number of worker threads; should be greater than 1
 	 */
 	public WorkQueue(int threads) 
+	{
+		this(threads, false);
+	}
+
+	/**
+	 * Starts a work queue with the specified number of threads, either sharing
+	 * one queue of tasks or stealing tasks from each other.
+	 *
+	 * @param threads number of worker threads; should be greater than 1
+	 * @param work_stealing true if each worker has its own deque and steals from the others
+	 */
+	public WorkQueue(int threads, boolean work_stealing) 
+	{
+		this(threads, work_stealing, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Starts a work queue with the specified number of threads, holding at most
+	 * the specified number of tasks that have not started.
+	 *
+	 * @param threads number of worker threads; should be greater than 1
+	 * @param work_stealing true if each worker has its own deque and steals from the others
+	 * @param capacity most tasks waiting to start, or {@link Integer#MAX_VALUE} for no limit
+	 */
+	public WorkQueue(int threads, boolean work_stealing, int capacity) 
 	{
 		this.tasks = new LinkedList<Runnable>();
-		this.workers = new Worker[threads];
 		this.shutdown = false;
+		this.capacity = Math.max(1, capacity);
+		this.space = capacity == Integer.MAX_VALUE ? null : new Semaphore(this.capacity);
+
+		if (work_stealing)
+		{
+			this.workers = new Worker[0];
+
+			// Tasks are Never Joined, so Each Worker Runs its Own Deque First In First Out
+			this.pool = new ForkJoinPool(threads, pool -> 
+			{
+				ForkJoinWorkerThread worker = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+				worker.setName("Worker" + worker.getName());
+				return worker;
+			}, null, true);
+
+			log.debug("Work queue initialized with {} work stealing threads.", threads);
+			return;
+		}
+
+		this.pool = null;
+		this.workers = new Worker[threads];
 
 		// start the threads so they are waiting in the background
 		for (int i = 0; i < threads; i++) 
@@ -100,18 +180,160 @@ public class WorkQueue
 	 */
 	public void execute(Runnable task) 
 	{
+		if (!reserve(1))
+		{
+			// Queue is Full: the Worker Runs the Task Itself Rather than Wait on Itself
+			incrementPending();
+			run(task);
+			return;
+		}
+
 		incrementPending();
 
+		if (pool != null)
+		{
+			// From a Worker, Goes on that Worker's Own Deque
+			pool.execute(() -> start(task));
+			return;
+		}
+
 		synchronized (tasks) 
 		{
 			tasks.addLast(task);
-			tasks.notifyAll();
+
+			// One New Task Only Needs One Worker
+			tasks.notify();
+		}
+	}
+
+	/**
+	 * Adds a batch of work (or task) requests to the queue, taking the queue's
+	 * lock and waking the workers once for the whole batch instead of once per
+	 * task. A batch larger than the queue's capacity is added in parts.
+	 *
+	 * @param batch work requests (in the form of {@link Runnable} objects)
+	 */
+	public void executeAll(Collection<? extends Runnable> batch)
+	{
+		if (pool != null || (space != null && isWorker()))
+		{
+			for (Runnable task : batch)
+			{
+				execute(task);
+			}
+
+			return;
+		}
+
+		List<Runnable> remaining = new ArrayList<>(batch);
+
+		for (int start = 0; start < remaining.size(); start += capacity)
+		{
+			List<Runnable> part = remaining.subList(start, Math.min(remaining.size(), start + capacity));
+
+			reserve(part.size());
+			pending.addAndGet(part.size());
+
+			synchronized (tasks)
+			{
+				tasks.addAll(part);
+				tasks.notifyAll();
+			}
+		}
+	}
+
+	/**
+	 * Takes space in a bounded queue for tasks about to be added, waiting for
+	 * it unless the current thread is one of the queue's own workers
+	 *
+	 * @param count number of tasks about to be added
+	 * @return true if the tasks can be added, or false if the queue is full and the current thread is a worker
+	 */
+	private boolean reserve(int count)
+	{
+		if (space == null)
+		{
+			return true;
+		}
+
+		if (isWorker())
+		{
+			return space.tryAcquire(count);
+		}
+
+		space.acquireUninterruptibly(count);
+		return true;
+	}
+
+	/**
+	 * Checks if the current thread is one of this queue's workers
+	 *
+	 * @return true if the current thread is a worker of this queue
+	 */
+	private boolean isWorker()
+	{
+		Thread current = Thread.currentThread();
+
+		if (pool != null)
+		{
+			return current instanceof ForkJoinWorkerThread && ((ForkJoinWorkerThread) current).getPool() == pool;
+		}
+
+		for (Worker worker : workers)
+		{
+			if (worker == current)
+			{
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Frees the space a task took in a bounded queue once it starts, then runs it
+	 *
+	 * @param task work request (in the form of a {@link Runnable} object)
+	 */
+	private void start(Runnable task)
+	{
+		if (space != null)
+		{
+			space.release();
+		}
+
+		run(task);
+	}
+
+	/**
+	 * Runs a task and counts it as no longer pending, catching any exception so
+	 * the worker keeps running
+	 *
+	 * @param task work request (in the form of a {@link Runnable} object)
+	 */
+	private void run(Runnable task)
+	{
+		try 
+		{
+			task.run();
+		}
+		catch (RuntimeException e) 
+		{
+			// catch runtime exceptions to avoid leaking threads
+			System.err.printf("Warning: %s encountered an exception while running.%n", Thread.currentThread().getName());
+			log.catching(Level.DEBUG, e);
+		}
+		finally 
+		{
+			decrementPending();
 		}
 	}
 
 	/**
 	 * Waits for all pending work (or tasks) to be finished. Does not terminate
-	 * the worker threads so that the work queue can continue to be used.
+	 * the worker threads so that the work queue can continue to be used. This
+	 * is a barrier for the whole queue: it also waits for tasks added by anyone
+	 * else sharing the queue, not only the caller's own.
 	 */
 	public void finish()
 	{
@@ -119,7 +341,7 @@ public class WorkQueue
 		{
 			synchronized (this)
 			{
-				while (pending > 0)
+				while (pending.get() > 0)
 				{
 					this.wait();
 				}
@@ -148,6 +370,11 @@ public class WorkQueue
 				worker.join();
 			}
 
+			if (pool != null)
+			{
+				pool.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+			}
+
 			log.debug("All worker threads terminated.");
 		}
 		catch (InterruptedException e) 
@@ -160,13 +387,19 @@ public class WorkQueue
 
 	/**
 	 * Asks the queue to shutdown. Any unprocessed work (or tasks) will not be
-	 * finished, but threads in-progress will not be interrupted.
+	 * finished, but threads in-progress will not be interrupted. Work stealing
+	 * workers finish the tasks already submitted before terminating.
 	 */
 	public void shutdown() 
 	{
 		// safe to do unsynchronized due to volatile keyword
 		shutdown = true;
 
+		if (pool != null)
+		{
+			pool.shutdown();
+		}
+
 		log.debug("Work queue triggering shutdown...");
 		
 		synchronized (tasks) 
@@ -182,7 +415,7 @@ public class WorkQueue
 	 */
 	public int size() 
 	{
-		return workers.length;
+		return pool != null ? pool.getParallelism() : workers.length;
 	}
 
 	/**
@@ -236,6 +469,12 @@ public class WorkQueue
 						}
 					}
 
+					// Started Tasks No Longer Take Space in a Bounded Queue
+					if (space != null)
+					{
+						space.release();
+					}
+
 					try 
 					{
 						log.trace("Work queue worker running work.");
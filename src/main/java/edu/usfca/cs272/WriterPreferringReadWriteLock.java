@@ -0,0 +1,341 @@
+package edu.usfca.cs272;
+
+import java.util.ConcurrentModificationException;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Read/write lock that lets a waiting writer go before any new reader, so a
+ * steady stream of searches can not starve indexing. Readers and writers wait
+ * on separate conditions, so releasing the lock only wakes the threads that
+ * can go next instead of every waiting thread. Like {@link ReadWriteLock}, the
+ * active writer can acquire read or write locks again, and a thread already
+ * holding a read lock can acquire another one even while a writer waits.
+ *
+ * @author Nino Estrada
+ * @author CS 272 Software Development (University of San Francisco)
+ * @version Fall 2022
+ *
+ */
+public class WriterPreferringReadWriteLock extends ReadWriteLock
+{
+	/**
+	 * Guards the Counts Below
+	 */
+	private final ReentrantLock guard;
+
+	/**
+	 * Readers Wait Here Until No Writer is Active or Waiting
+	 */
+	private final Condition can_read;
+
+	/**
+	 * Writers Wait Here Until No Reader or Other Writer is Active
+	 */
+	private final Condition can_write;
+
+	/**
+	 * Number of Read Locks Held
+	 */
+	private int readers;
+
+	/**
+	 * Number of Write Locks Held by the Active Writer
+	 */
+	private int writers;
+
+	/**
+	 * Number of Writers Waiting for the Lock
+	 */
+	private int waiting_writers;
+
+	/**
+	 * Thread Holding the Write Lock
+	 */
+	private Thread active_writer;
+
+	/**
+	 * Number of Read Locks Each Thread Holds, so Nested Reads Never Wait Behind a Writer
+	 */
+	private final ThreadLocal<int[]> held_reads;
+
+	/**
+	 * Lock Used for Reading
+	 */
+	private final SimpleLock read_lock;
+
+	/**
+	 * Lock Used for Writing
+	 */
+	private final SimpleLock write_lock;
+
+	/**
+	 * How Contended the Lock is
+	 */
+	private final LockMetrics metrics;
+
+	/**
+	 * Instantiates the lock
+	 */
+	public WriterPreferringReadWriteLock()
+	{
+		guard = new ReentrantLock();
+		can_read = guard.newCondition();
+		can_write = guard.newCondition();
+		held_reads = ThreadLocal.withInitial(() -> new int[1]);
+		read_lock = new ReadLock();
+		write_lock = new WriteLock();
+		metrics = new LockMetrics("Writer preferring");
+	}
+
+	@Override
+	public SimpleLock read()
+	{
+		return read_lock;
+	}
+
+	@Override
+	public SimpleLock write()
+	{
+		return write_lock;
+	}
+
+	@Override
+	public int readers()
+	{
+		guard.lock();
+
+		try
+		{
+			return readers;
+		}
+		finally
+		{
+			guard.unlock();
+		}
+	}
+
+	@Override
+	public int writers()
+	{
+		guard.lock();
+
+		try
+		{
+			return writers;
+		}
+		finally
+		{
+			guard.unlock();
+		}
+	}
+
+	@Override
+	public boolean isActiveWriter()
+	{
+		guard.lock();
+
+		try
+		{
+			return Thread.currentThread().equals(active_writer);
+		}
+		finally
+		{
+			guard.unlock();
+		}
+	}
+
+	/**
+	 * @return how contended the lock is
+	 */
+	public LockMetrics getMetrics()
+	{
+		return metrics;
+	}
+
+	@Override
+	public void report()
+	{
+		metrics.report();
+	}
+
+	/**
+	 * Checks if the current thread has to wait to read. Must hold the guard.
+	 *
+	 * @param nested is true if the thread already holds a read lock
+	 * @return true if the thread has to wait
+	 */
+	private boolean mustWaitToRead(boolean nested)
+	{
+		Thread current = Thread.currentThread();
+
+		if (current.equals(active_writer) || nested)
+		{
+			return false;
+		}
+
+		return writers > 0 || waiting_writers > 0;
+	}
+
+	/**
+	 * Used to maintain simultaneous read operations.
+	 */
+	private class ReadLock implements SimpleLock
+	{
+		@Override
+		public void lock()
+		{
+			int[] held = held_reads.get();
+
+			guard.lock();
+
+			try
+			{
+				if (mustWaitToRead(held[0] > 0))
+				{
+					long start = metrics.startWaiting();
+
+					try
+					{
+						while (mustWaitToRead(false))
+						{
+							can_read.awaitUninterruptibly();
+						}
+					}
+					finally
+					{
+						metrics.stopWaiting(start, false);
+					}
+				}
+
+				readers++;
+				held[0]++;
+			}
+			finally
+			{
+				guard.unlock();
+			}
+		}
+
+		/**
+		 * Releases the read lock, letting a waiting writer go once the last reader leaves.
+		 *
+		 * @throws IllegalStateException if the thread holds no read lock
+		 */
+		@Override
+		public void unlock() throws IllegalStateException
+		{
+			int[] held = held_reads.get();
+
+			guard.lock();
+
+			try
+			{
+				if (held[0] == 0)
+				{
+					throw new IllegalStateException();
+				}
+
+				readers--;
+				held[0]--;
+
+				if (readers == 0)
+				{
+					can_write.signal();
+				}
+			}
+			finally
+			{
+				guard.unlock();
+			}
+		}
+	}
+
+	/**
+	 * Used to maintain exclusive write operations.
+	 */
+	private class WriteLock implements SimpleLock
+	{
+		@Override
+		public void lock()
+		{
+			Thread current = Thread.currentThread();
+
+			guard.lock();
+
+			try
+			{
+				if (!current.equals(active_writer) && (writers > 0 || readers > 0))
+				{
+					long start = metrics.startWaiting();
+					waiting_writers++;
+
+					try
+					{
+						while (writers > 0 || readers > 0)
+						{
+							can_write.awaitUninterruptibly();
+						}
+					}
+					finally
+					{
+						waiting_writers--;
+						metrics.stopWaiting(start, true);
+					}
+				}
+
+				writers++;
+				active_writer = current;
+			}
+			finally
+			{
+				guard.unlock();
+			}
+		}
+
+		/**
+		 * Releases the write lock, letting the next writer go before any reader.
+		 *
+		 * @throws IllegalStateException if no writers to unlock
+		 * @throws ConcurrentModificationException if called by a thread that does not hold the write lock
+		 */
+		@Override
+		public void unlock() throws IllegalStateException, ConcurrentModificationException
+		{
+			guard.lock();
+
+			try
+			{
+				if (writers == 0)
+				{
+					throw new IllegalStateException();
+				}
+				else if (!Thread.currentThread().equals(active_writer))
+				{
+					throw new ConcurrentModificationException();
+				}
+
+				writers--;
+
+				if (writers == 0)
+				{
+					active_writer = null;
+
+					// Writers Go First, Readers Only Once None are Waiting
+					if (waiting_writers > 0)
+					{
+						can_write.signal();
+					}
+					else
+					{
+						can_read.signalAll();
+					}
+				}
+			}
+			finally
+			{
+				guard.unlock();
+			}
+		}
+	}
+}
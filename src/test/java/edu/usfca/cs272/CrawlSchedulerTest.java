@@ -0,0 +1,424 @@
+package edu.usfca.cs272;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Checks the politeness limits of {@link CrawlScheduler} against stub HTTP
+ * servers on the local machine. Each stub server is a different host to the
+ * scheduler, since each listens on its own port, and each holds every request
+ * open for a while so the fetches overlap.
+ *
+ * @author Nino Estrada
+ * @author CS 272 Software Development (University of San Francisco)
+ * @version Fall 2022
+ *
+ */
+public class CrawlSchedulerTest
+{
+	/**
+	 * Milliseconds Each Stub Server Holds a Request Open
+	 */
+	private static final long HOLD = 100;
+
+	/**
+	 * Milliseconds Two Request Start Times may Differ from the Scheduled Delay:
+	 * a Fetch Thread may Reach the Server Late, Never Early
+	 */
+	private static final long SLACK = 30;
+
+	/**
+	 * Fetches Running Against Every Stub Server at Once
+	 */
+	private final AtomicInteger all_active = new AtomicInteger();
+
+	/**
+	 * Most Fetches that Ran Against Every Stub Server at Once
+	 */
+	private final AtomicInteger all_most = new AtomicInteger();
+
+	/**
+	 * Stub Servers Started by the Current Test
+	 */
+	private final List<StubHost> stubs = new ArrayList<>();
+
+	/**
+	 * Stops the stub servers started by the test
+	 */
+	@AfterEach
+	public void stopStubs()
+	{
+		for (StubHost stub : stubs)
+		{
+			stub.stop();
+		}
+	}
+
+	/**
+	 * Starts a stub server on its own port
+	 *
+	 * @return the stub server
+	 * @throws IOException if the server could not be started
+	 */
+	private StubHost startStub() throws IOException
+	{
+		StubHost stub = new StubHost();
+		stubs.add(stub);
+		return stub;
+	}
+
+	/**
+	 * Fetches the URLs through a scheduler and waits for every fetch to finish
+	 *
+	 * @param fetchers is the number of fetches that may run at once across all hosts
+	 * @param host_limit is the number of fetches that may run at once against one host
+	 * @param delay is the milliseconds between the start of two fetches to the same host
+	 * @param urls are the URLs to fetch
+	 * @return the number of URLs fetched as HTML
+	 */
+	private static int crawl(int fetchers, int host_limit, long delay, List<URL> urls)
+	{
+		AtomicInteger fetched = new AtomicInteger();
+
+		CrawlScheduler scheduler = new CrawlScheduler(fetchers, host_limit, delay, url ->
+		{
+			if (HtmlFetcher.fetch(url) != null)
+			{
+				fetched.incrementAndGet();
+			}
+		});
+
+		for (URL url : urls)
+		{
+			scheduler.schedule(url);
+		}
+
+		scheduler.shutdown();
+		return fetched.get();
+	}
+
+	/**
+	 * Updates a running maximum
+	 *
+	 * @param most is the maximum so far
+	 * @param value is the new value
+	 */
+	private static void raise(AtomicInteger most, int value)
+	{
+		most.accumulateAndGet(value, Math::max);
+	}
+
+	/**
+	 * Fetches limited for each host and across all hosts
+	 */
+	@Nested
+	@Timeout(30)
+	public class LimitTests
+	{
+		/**
+		 * Checks no more than the host limit of fetches run against one host, even
+		 * when there are enough fetch threads for more
+		 *
+		 * @throws IOException if a stub server could not be started
+		 */
+		@Test
+		public void testHostLimit() throws IOException
+		{
+			StubHost stub = startStub();
+
+			assertEquals(10, crawl(8, 2, 0, stub.urls(10)));
+			assertTrue(stub.most.get() <= 2, () -> "Fetches at once against one host: " + stub.most.get());
+		}
+
+		/**
+		 * Checks the host limit applies to each host separately: hosts with a limit
+		 * of one fetch still fetch at the same time as each other
+		 *
+		 * @throws IOException if a stub server could not be started
+		 */
+		@Test
+		public void testHostLimitPerHost() throws IOException
+		{
+			StubHost first = startStub();
+			StubHost second = startStub();
+
+			List<URL> urls = new ArrayList<>(first.urls(4));
+			urls.addAll(second.urls(4));
+
+			assertEquals(8, crawl(4, 1, 0, urls));
+			assertEquals(1, first.most.get());
+			assertEquals(1, second.most.get());
+			assertEquals(2, all_most.get());
+		}
+
+		/**
+		 * Checks the number of fetch threads bounds the fetches running across all
+		 * hosts, even when every host allows more
+		 *
+		 * @throws IOException if a stub server could not be started
+		 */
+		@Test
+		public void testFetchers() throws IOException
+		{
+			List<URL> urls = new ArrayList<>();
+
+			for (int i = 0; i < 4; i++)
+			{
+				urls.addAll(startStub().urls(4));
+			}
+
+			assertEquals(16, crawl(3, 4, 0, urls));
+			assertTrue(all_most.get() <= 3, () -> "Fetches at once across all hosts: " + all_most.get());
+		}
+	}
+
+	/**
+	 * Fetches to the same host spaced apart by the delay
+	 */
+	@Nested
+	@Timeout(30)
+	public class DelayTests
+	{
+		/**
+		 * Checks two fetches to the same host start at least the delay apart, even
+		 * when the host limit allows them to run at once
+		 *
+		 * @throws IOException if a stub server could not be started
+		 */
+		@Test
+		public void testDelay() throws IOException
+		{
+			long delay = 200;
+			StubHost stub = startStub();
+
+			assertEquals(5, crawl(4, 4, delay, stub.urls(5)));
+
+			List<Long> starts = stub.sortedStarts();
+			assertEquals(5, starts.size());
+
+			for (int i = 1; i < starts.size(); i++)
+			{
+				long gap = starts.get(i) - starts.get(i - 1);
+				assertTrue(gap >= delay - SLACK, "Milliseconds between two fetches: " + gap);
+			}
+		}
+
+		/**
+		 * Checks the delay applies to each host separately: the first fetch to each
+		 * host starts without waiting for the other host
+		 *
+		 * @throws IOException if a stub server could not be started
+		 */
+		@Test
+		public void testDelayPerHost() throws IOException
+		{
+			long delay = 1000;
+			StubHost first = startStub();
+			StubHost second = startStub();
+
+			List<URL> urls = new ArrayList<>(first.urls(1));
+			urls.addAll(second.urls(1));
+
+			assertEquals(2, crawl(2, 1, delay, urls));
+
+			long gap = Math.abs(first.sortedStarts().get(0) - second.sortedStarts().get(0));
+			assertTrue(gap < delay, "Milliseconds between the first fetch to each host: " + gap);
+		}
+	}
+
+	/**
+	 * Keys each host's queue is found under
+	 */
+	@Nested
+	public class HostKeyTests
+	{
+		/**
+		 * Checks an implicit port is filled in with the protocol's default port
+		 *
+		 * @throws MalformedURLException if a URL could not be parsed
+		 */
+		@Test
+		public void testDefaultPort() throws MalformedURLException
+		{
+			assertEquals("http://www.example.com:80", CrawlScheduler.hostKey(new URL("http://www.example.com/a.html")));
+			assertEquals("https://www.example.com:443", CrawlScheduler.hostKey(new URL("https://www.example.com/")));
+		}
+
+		/**
+		 * Checks an explicit default port is the same host as an implicit one
+		 *
+		 * @throws MalformedURLException if a URL could not be parsed
+		 */
+		@Test
+		public void testExplicitDefaultPort() throws MalformedURLException
+		{
+			assertEquals(
+					CrawlScheduler.hostKey(new URL("https://www.example.com/")),
+					CrawlScheduler.hostKey(new URL("https://www.example.com:443/b.html")));
+		}
+
+		/**
+		 * Checks different ports and protocols on the same name are different hosts
+		 *
+		 * @throws MalformedURLException if a URL could not be parsed
+		 */
+		@Test
+		public void testDifferentPorts() throws MalformedURLException
+		{
+			assertEquals("http://localhost:8080", CrawlScheduler.hostKey(new URL("http://localhost:8080/c.html")));
+
+			assertNotEquals(
+					CrawlScheduler.hostKey(new URL("http://localhost:8080/")),
+					CrawlScheduler.hostKey(new URL("http://localhost:8081/")));
+
+			assertNotEquals(
+					CrawlScheduler.hostKey(new URL("http://www.example.com/")),
+					CrawlScheduler.hostKey(new URL("https://www.example.com/")));
+		}
+	}
+
+	/**
+	 * A stub HTTP server on its own local port. Answers every request with a
+	 * small HTML page after holding the request open, and keeps track of the
+	 * requests running against it.
+	 */
+	private class StubHost
+	{
+		/**
+		 * Server Listening on the Local Machine
+		 */
+		private final HttpServer server;
+
+		/**
+		 * Threads Answering the Requests: as Many as the Requests at Once
+		 */
+		private final ExecutorService handlers;
+
+		/**
+		 * Requests Running Against this Host
+		 */
+		private final AtomicInteger active = new AtomicInteger();
+
+		/**
+		 * Most Requests that Ran Against this Host at Once
+		 */
+		private final AtomicInteger most = new AtomicInteger();
+
+		/**
+		 * Start Time of Each Request in Milliseconds
+		 */
+		private final List<Long> starts = Collections.synchronizedList(new ArrayList<>());
+
+		/**
+		 * Starts the server on a free local port
+		 *
+		 * @throws IOException if the server could not be started
+		 */
+		public StubHost() throws IOException
+		{
+			server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+			handlers = Executors.newCachedThreadPool();
+
+			server.createContext("/", this::handle);
+			server.setExecutor(handlers);
+			server.start();
+		}
+
+		/**
+		 * Answers one request after holding it open
+		 *
+		 * @param exchange is the request and its response
+		 * @throws IOException if the response could not be sent
+		 */
+		private void handle(HttpExchange exchange) throws IOException
+		{
+			starts.add(System.nanoTime() / 1_000_000);
+			raise(most, active.incrementAndGet());
+			raise(all_most, all_active.incrementAndGet());
+
+			try
+			{
+				Thread.sleep(HOLD);
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+			}
+			finally
+			{
+				active.decrementAndGet();
+				all_active.decrementAndGet();
+			}
+
+			byte[] body = "<html><body>stub</body></html>".getBytes(StandardCharsets.UTF_8);
+			exchange.getResponseHeaders().set("Content-Type", "text/html; charset=utf-8");
+			exchange.sendResponseHeaders(200, body.length);
+
+			try (OutputStream output = exchange.getResponseBody())
+			{
+				output.write(body);
+			}
+		}
+
+		/**
+		 * Provides different URLs on this host
+		 *
+		 * @param count is the number of URLs
+		 * @return the URLs
+		 * @throws MalformedURLException if a URL could not be built
+		 */
+		public List<URL> urls(int count) throws MalformedURLException
+		{
+			List<URL> urls = new ArrayList<>();
+
+			for (int i = 0; i < count; i++)
+			{
+				urls.add(new URL("http", server.getAddress().getHostString(), server.getAddress().getPort(), "/page" + i + ".html"));
+			}
+
+			return urls;
+		}
+
+		/**
+		 * @return the start time of each request in milliseconds, earliest first
+		 */
+		public List<Long> sortedStarts()
+		{
+			List<Long> sorted = new ArrayList<>(starts);
+			Collections.sort(sorted);
+			return sorted;
+		}
+
+		/**
+		 * Stops the server and its request threads
+		 */
+		public void stop()
+		{
+			server.stop(0);
+			handlers.shutdownNow();
+		}
+	}
+}
@@ -0,0 +1,295 @@
+package edu.usfca.cs272;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * Checks the single scan of {@link HtmlCleaner#stripHtml(String, URL, java.util.Collection)}
+ * and {@link HtmlCleaner#stripBlockElements(String)} against the regex passes
+ * it replaced: {@link HtmlCleaner#stripComments(String)} followed by
+ * {@link HtmlCleaner#stripElement(String, String)} for each block element.
+ * Both must give the same block stripped text, final text, and links, except
+ * where removing a comment or block from the middle of a tag joins the tag's
+ * pieces back together, which the regex passes then treat as a new tag.
+ *
+ * @author Nino Estrada
+ * @author CS 272 Software Development (University of San Francisco)
+ * @version Fall 2022
+ *
+ */
+public class HtmlCleanerDifferentialTest
+{
+	/**
+	 * Block Elements in the Order the Regex Passes Removed Them
+	 */
+	private static final String[] BLOCKS = { "head", "style", "script", "noscript", "iframe", "svg" };
+
+	/**
+	 * URL the Fixtures and Generated Documents are Fetched From
+	 */
+	private static final URL BASE = url("https://www.example.com/docs/index.html");
+
+	/**
+	 * Pieces the Generated Documents are Built From
+	 */
+	private static final String[] FRAGMENTS = {
+			"<head>", "</head>", "<HEAD class=x>", "<style>", "</style >", "< script>", "</ script>", "</SCRIPT>",
+			"<script type=\"a>b\">", "<noscript>", "</noscript>", "<iframe src=\"a\">", "</iframe>", "<svg>", "</svg>",
+			"<!--", "-->", "<!-- c -->", "<a href=\"/x\">", "</a>", "<a\nclass=\"q\" href=\"y.html#f\">",
+			"<A HREF=\"p.html\">", "href=\"", "\"", "<", ">", "text", "word ", "\n", " ", "&amp;", "&lt;", "&bogus;",
+			"&#65;", "<p>", "<header>", "<scriptx>", "<svgs>", "</svg x>", "<headline>", "<style\tmedia=x>", "<br/>" };
+
+	/**
+	 * Number of Generated Documents Checked per Seed
+	 */
+	private static final int DOCUMENTS = 20_000;
+
+	/**
+	 * Removes comments and block elements the way the regex passes did
+	 *
+	 * @param html the HTML to strip comments and block elements from
+	 * @return text clean of any comments and block elements
+	 */
+	private static String oracleBlocks(String html)
+	{
+		html = HtmlCleaner.stripComments(html);
+
+		for (String name : BLOCKS)
+		{
+			html = HtmlCleaner.stripElement(html, name);
+		}
+
+		return html;
+	}
+
+	/**
+	 * Removes everything the way the regex passes did
+	 *
+	 * @param html the HTML to strip
+	 * @return text clean of any HTML tags, block elements, and entities
+	 */
+	private static String oracleHtml(String html)
+	{
+		return HtmlCleaner.stripEntities(HtmlCleaner.stripTags(oracleBlocks(html)));
+	}
+
+	/**
+	 * Checks the single scan gives the same block stripped text, final text, and
+	 * links as the regex passes
+	 *
+	 * @param html the HTML to strip
+	 */
+	private static void assertSameAsOracle(String html)
+	{
+		String blocks = oracleBlocks(html);
+		List<URL> links = new ArrayList<>();
+		String text = HtmlCleaner.stripHtml(html, BASE, links);
+
+		assertEquals(blocks, HtmlCleaner.stripBlockElements(html), () -> "Block stripped text differs for:\n" + html);
+		assertEquals(oracleHtml(html), text, () -> "Text differs for:\n" + html);
+		assertEquals(oracleHtml(html), HtmlCleaner.stripHtml(html), () -> "Text without links differs for:\n" + html);
+		assertEquals(LinkFinder.listUrls(BASE, blocks), links, () -> "Links differ for:\n" + html);
+	}
+
+	/**
+	 * Reads a fixture from the test resources
+	 *
+	 * @param name the file name of the fixture
+	 * @return the fixture's HTML
+	 * @throws IOException if the fixture could not be read
+	 */
+	private static String fixture(String name) throws IOException
+	{
+		try (InputStream input = HtmlCleanerDifferentialTest.class.getResourceAsStream("/html/" + name))
+		{
+			if (input == null)
+			{
+				throw new IOException("Missing fixture: " + name);
+			}
+
+			return new String(input.readAllBytes(), StandardCharsets.UTF_8);
+		}
+	}
+
+	/**
+	 * Parses a URL known to be valid
+	 *
+	 * @param url the URL to parse
+	 * @return the parsed URL
+	 */
+	private static URL url(String url)
+	{
+		try
+		{
+			return new URL(url);
+		}
+		catch (MalformedURLException e)
+		{
+			throw new IllegalArgumentException(e);
+		}
+	}
+
+	/**
+	 * Documents built from real HTML, which must match the regex passes exactly
+	 */
+	@Nested
+	public class FixtureTests
+	{
+		/**
+		 * Checks a fixture against the regex passes
+		 *
+		 * @param name the file name of the fixture
+		 * @throws IOException if the fixture could not be read
+		 */
+		@ParameterizedTest
+		@ValueSource(strings = { "page.html" })
+		public void testFixture(String name) throws IOException
+		{
+			assertSameAsOracle(fixture(name));
+		}
+
+		/**
+		 * Checks the links found in the fixture page, none of which are inside a
+		 * comment or block element
+		 *
+		 * @throws IOException if the fixture could not be read
+		 */
+		@Test
+		public void testFixtureLinks() throws IOException
+		{
+			List<URL> links = new ArrayList<>();
+			HtmlCleaner.stripHtml(fixture("page.html"), BASE, links);
+
+			List<URL> expected = List.of(
+					url("https://www.example.com/docs/guide.html"),
+					url("https://www.example.com/about/index.html"),
+					url("https://www.example.com/docs/after.html"));
+
+			assertEquals(expected, links);
+		}
+	}
+
+	/**
+	 * Randomly generated documents of tags, comments, entities, and links, which
+	 * must match the regex passes exactly
+	 */
+	@Nested
+	public class GeneratedTests
+	{
+		/**
+		 * Checks generated documents against the regex passes
+		 *
+		 * @param seed the seed the documents are generated from
+		 */
+		@ParameterizedTest
+		@ValueSource(longs = { 1, 2, 3, 272 })
+		public void testGenerated(long seed)
+		{
+			Random random = new Random(seed);
+
+			for (int i = 0; i < DOCUMENTS; i++)
+			{
+				StringBuilder html = new StringBuilder();
+				int length = random.nextInt(25);
+
+				for (int j = 0; j < length; j++)
+				{
+					html.append(FRAGMENTS[random.nextInt(FRAGMENTS.length)]);
+				}
+
+				assertSameAsOracle(html.toString());
+			}
+		}
+	}
+
+	/**
+	 * The known differences: a comment or block removed from the middle of a tag.
+	 * The regex passes joined the tag's pieces into a new tag and removed the
+	 * element it seemed to start. The single scan only removes elements written
+	 * in the HTML, so it keeps the pieces as they were.
+	 */
+	@Nested
+	public class SplicedTests
+	{
+		/**
+		 * Checks the single scan differs from the regex passes only on the
+		 * spliced tag, and both find the same links
+		 *
+		 * @param name the file name of the fixture
+		 * @throws IOException if the fixture could not be read
+		 */
+		@ParameterizedTest
+		@ValueSource(strings = { "spliced-comment.html", "spliced-script.html", "spliced-block.html" })
+		public void testDiffersFromOracle(String name) throws IOException
+		{
+			String html = fixture(name);
+			List<URL> links = new ArrayList<>();
+
+			assertNotEquals(oracleHtml(html), HtmlCleaner.stripHtml(html, BASE, links));
+			assertEquals(LinkFinder.listUrls(BASE, oracleBlocks(html)), links);
+		}
+
+		/**
+		 * A comment inside a head tag: the regex passes remove the head it spliced
+		 * together, the scan keeps it
+		 *
+		 * @throws IOException if the fixture could not be read
+		 */
+		@Test
+		public void testSplicedComment() throws IOException
+		{
+			String html = fixture("spliced-comment.html");
+
+			assertEquals("<p>body</p>\n", oracleBlocks(html));
+			assertEquals("<head><title>Spliced</title></head><p>body</p>\n", HtmlCleaner.stripBlockElements(html));
+			assertEquals("Splicedbody\n", HtmlCleaner.stripHtml(html));
+		}
+
+		/**
+		 * A comment inside a script tag: the regex passes remove the script it
+		 * spliced together, the scan keeps it
+		 *
+		 * @throws IOException if the fixture could not be read
+		 */
+		@Test
+		public void testSplicedScript() throws IOException
+		{
+			String html = fixture("spliced-script.html");
+
+			assertEquals("<p>text</p>\n", oracleBlocks(html));
+			assertEquals("<script>var hidden = 1;</script><p>text</p>\n", HtmlCleaner.stripBlockElements(html));
+			assertEquals("var hidden = 1;text\n", HtmlCleaner.stripHtml(html));
+		}
+
+		/**
+		 * A style element inside a script tag: the style pass runs before the
+		 * script pass, so the regex passes remove the script it spliced together,
+		 * the scan keeps it
+		 *
+		 * @throws IOException if the fixture could not be read
+		 */
+		@Test
+		public void testSplicedBlock() throws IOException
+		{
+			String html = fixture("spliced-block.html");
+
+			assertEquals("<p>text</p>\n", oracleBlocks(html));
+			assertEquals("<script>var hidden = 1;</script><p>text</p>\n", HtmlCleaner.stripBlockElements(html));
+			assertEquals("var hidden = 1;text\n", HtmlCleaner.stripHtml(html));
+		}
+	}
+}
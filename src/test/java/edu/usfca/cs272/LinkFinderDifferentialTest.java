@@ -0,0 +1,241 @@
+package edu.usfca.cs272;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.Random;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * Checks {@link LinkFinder#normalize(URL)}, which builds most URLs as a plain
+ * string, against the path it replaced: rebuilding every URL through
+ * {@code new URI(...).toURL()} without its fragment. Both must give the same
+ * URL for every link, and fail on the same links.
+ *
+ * @author Nino Estrada
+ * @author CS 272 Software Development (University of San Francisco)
+ * @version Fall 2022
+ *
+ */
+public class LinkFinderDifferentialTest
+{
+	/**
+	 * Pieces the Generated Links are Built From: Odd Hosts, Ports, Percent Signs,
+	 * Brackets, Spaces, and Non-ASCII
+	 */
+	private static final String[] FRAGMENTS = {
+			"http://", "https://", "HTTP://", "//", "a.com", "A-b.org", "x_y.com", "1.2.3.4", "01.2.3.4", "256.1.1.1",
+			"1.2.3", "localhost", "123", "h.", "-h.com", "[::1]", ":80", ":8080", ":", "/", "p.html", "../", "./", "q",
+			"?", "x=1", "&", "%20", "%", "#", "frag", " ", "é", "[", "]", "@", "user@", "mailto:x@y",
+			"javascript:void(0)", ";", "~", "'", "(", "\"", "<", "|", "`", "{", "^", "\\", ",", "$", "+", "=", "!", "*",
+			"ftp://h/" };
+
+	/**
+	 * URLs the Generated Links are Relative To
+	 */
+	private static final URL[] BASES = {
+			url("http://h.com/d/i.html"), url("https://x.org:8443/a/b/?q=1"), url("http://127.0.0.1:8765/p0.html") };
+
+	/**
+	 * Number of Generated Links Checked per Seed
+	 */
+	private static final int LINKS = 500_000;
+
+	/**
+	 * Result of a Link Skipped for Not Using HTTP(S)
+	 */
+	private static final String SKIPPED = "skipped";
+
+	/**
+	 * Result of a Link that Failed to Parse or Normalize
+	 */
+	private static final String INVALID = "invalid";
+
+	/**
+	 * Normalizes a link the way every link was normalized before the plain
+	 * string path
+	 *
+	 * @param base the URL the link is relative to
+	 * @param href the link
+	 * @return the normalized URL, or whether the link was skipped or invalid
+	 */
+	private static String oracle(URL base, String href)
+	{
+		try
+		{
+			URL url = new URL(base, href);
+
+			if (!LinkFinder.isHttp(url))
+			{
+				return SKIPPED;
+			}
+
+			return new URI(url.getProtocol(), url.getUserInfo(), url.getHost(),
+					url.getPort(), url.getPath(), url.getQuery(), null).toURL().toExternalForm();
+		}
+		catch (MalformedURLException | URISyntaxException | IllegalArgumentException e)
+		{
+			return INVALID;
+		}
+	}
+
+	/**
+	 * Normalizes a link with {@link LinkFinder#normalize(URL)}
+	 *
+	 * @param base the URL the link is relative to
+	 * @param href the link
+	 * @return the normalized URL, or whether the link was skipped or invalid
+	 */
+	private static String normalized(URL base, String href)
+	{
+		try
+		{
+			URL url = new URL(base, href);
+
+			if (!LinkFinder.isHttp(url))
+			{
+				return SKIPPED;
+			}
+
+			return LinkFinder.normalize(url).toExternalForm();
+		}
+		catch (MalformedURLException | URISyntaxException | IllegalArgumentException e)
+		{
+			return INVALID;
+		}
+	}
+
+	/**
+	 * Parses a URL known to be valid
+	 *
+	 * @param url the URL to parse
+	 * @return the parsed URL
+	 */
+	private static URL url(String url)
+	{
+		try
+		{
+			return new URL(url);
+		}
+		catch (MalformedURLException e)
+		{
+			throw new IllegalArgumentException(e);
+		}
+	}
+
+	/**
+	 * Links chosen for each part the plain string path checks, which must match
+	 * the old path exactly
+	 */
+	@Nested
+	public class ChosenTests
+	{
+		/**
+		 * Checks a link against the old path from every base
+		 *
+		 * @param href the link
+		 */
+		@ParameterizedTest
+		@ValueSource(strings = {
+				"plain.html", "/a/b.html?x=1&y=2", "https://www.example.com/", "HTTP://Example.COM:8080/p?q#f",
+				"#only-fragment", "?q=[1]", "/a%20b.html", "/a b.html", "/café.html", "?q=café",
+				"http://user@example.com/", "http://[::1]:8080/", "http://[::1/", "http://1.2.3.4/", "http://256.1.1.1/",
+				"http://01.2.3.4/", "http://1.2.3/", "http://localhost/", "http://-h.com/", "http://h-.com/",
+				"http://x_y.com/", "http://h./", "http://a.123/", "http://a.b1/", "http:///p.html", "mailto:x@y",
+				"javascript:void(0)", "ftp://h/", "http://h.com:/p", "/[x]", "/a|b", "/a{b}", "/a\\b" })
+		public void testChosen(String href)
+		{
+			for (URL base : BASES)
+			{
+				assertEquals(oracle(base, href), normalized(base, href), () -> base + " | " + href);
+			}
+		}
+
+		/**
+		 * Checks an already normalized URL is given back as is, without building a
+		 * new one
+		 *
+		 * @throws Exception if the URL could not be normalized
+		 */
+		@Test
+		public void testAlreadyNormalized() throws Exception
+		{
+			URL url = url("https://www.example.com:8443/a/b.html?x=1");
+			assertSame(url, LinkFinder.normalize(url));
+		}
+
+		/**
+		 * Checks a URL with a fragment is built again without it
+		 *
+		 * @throws Exception if the URL could not be normalized
+		 */
+		@Test
+		public void testFragment() throws Exception
+		{
+			URL url = url("https://www.example.com/a/b.html?x=1#top");
+			URL normal = LinkFinder.normalize(url);
+
+			assertNotSame(url, normal);
+			assertEquals("https://www.example.com/a/b.html?x=1", normal.toExternalForm());
+		}
+
+		/**
+		 * Checks hosts {@link URL} accepts but {@link URI} rejects are left for
+		 * {@link URI} to reject, instead of passing through the plain path
+		 *
+		 * @param host the host of the URL
+		 */
+		@ParameterizedTest
+		@ValueSource(strings = { "-h.com", "h-.com", "x_y.com", "a b.com" })
+		public void testInvalidHost(String host)
+		{
+			assertThrows(URISyntaxException.class, () -> LinkFinder.normalize(url("http://" + host + "/")));
+		}
+	}
+
+	/**
+	 * Randomly generated relative and absolute links, which must match the old
+	 * path exactly
+	 */
+	@Nested
+	public class GeneratedTests
+	{
+		/**
+		 * Checks generated links against the old path
+		 *
+		 * @param seed the seed the links are generated from
+		 */
+		@ParameterizedTest
+		@ValueSource(longs = { 1, 2, 3 })
+		public void testGenerated(long seed)
+		{
+			Random random = new Random(seed);
+
+			for (int i = 0; i < LINKS; i++)
+			{
+				StringBuilder href = new StringBuilder();
+				int length = 1 + random.nextInt(7);
+
+				for (int j = 0; j < length; j++)
+				{
+					href.append(FRAGMENTS[random.nextInt(FRAGMENTS.length)]);
+				}
+
+				URL base = BASES[random.nextInt(BASES.length)];
+				String link = href.toString();
+
+				assertEquals(oracle(base, link), normalized(base, link), () -> base + " | " + link);
+			}
+		}
+	}
+}
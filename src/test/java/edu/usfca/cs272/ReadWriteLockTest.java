@@ -0,0 +1,515 @@
+package edu.usfca.cs272;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ConcurrentModificationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * Checks the rules every read/write lock behind the -lock flag shares, the
+ * writer preference of {@link WriterPreferringReadWriteLock}, and that
+ * {@link LockMetrics} only counts the acquisitions that had to wait.
+ *
+ * @author Nino Estrada
+ * @author CS 272 Software Development (University of San Francisco)
+ * @version Fall 2022
+ *
+ */
+@Timeout(30)
+public class ReadWriteLockTest
+{
+	/**
+	 * Milliseconds a Thread is Given to Show it is Not Blocked
+	 */
+	private static final long PATIENCE = 5000;
+
+	/**
+	 * Milliseconds a Blocked Thread is Watched to Show it Stays Blocked
+	 */
+	private static final long BLOCKED = 200;
+
+	/**
+	 * Creates the lock picked by the -lock flag
+	 *
+	 * @param type is monitor, writer, or stamped
+	 * @return the lock
+	 */
+	private static ReadWriteLock create(String type)
+	{
+		if (type.equals("writer"))
+		{
+			return new WriterPreferringReadWriteLock();
+		}
+		else if (type.equals("stamped"))
+		{
+			return new StampedReadWriteLock();
+		}
+
+		return new ReadWriteLock();
+	}
+
+	/**
+	 * Starts a thread that runs an action and then counts down
+	 *
+	 * @param action is what the thread runs
+	 * @return the latch counted down once the action finished
+	 */
+	private static CountDownLatch start(Runnable action)
+	{
+		CountDownLatch done = new CountDownLatch(1);
+
+		Thread thread = new Thread(() ->
+		{
+			action.run();
+			done.countDown();
+		});
+
+		thread.setDaemon(true);
+		thread.start();
+		return done;
+	}
+
+	/**
+	 * Starts a thread that runs an action, and waits until it blocks
+	 *
+	 * @param action is what the thread runs
+	 * @return the latch counted down once the action finished
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	private static CountDownLatch startBlocked(Runnable action) throws InterruptedException
+	{
+		CountDownLatch done = new CountDownLatch(1);
+
+		Thread thread = new Thread(() ->
+		{
+			action.run();
+			done.countDown();
+		});
+
+		thread.setDaemon(true);
+		thread.start();
+
+		while (thread.getState() != Thread.State.WAITING && thread.getState() != Thread.State.BLOCKED)
+		{
+			assertTrue(thread.isAlive(), "Thread finished instead of blocking.");
+			Thread.sleep(1);
+		}
+
+		return done;
+	}
+
+	/**
+	 * Checks an action finishes
+	 *
+	 * @param done is the latch counted down once the action finished
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	private static void assertFinishes(CountDownLatch done) throws InterruptedException
+	{
+		assertTrue(done.await(PATIENCE, TimeUnit.MILLISECONDS), "Thread is still blocked.");
+	}
+
+	/**
+	 * Checks an action stays blocked
+	 *
+	 * @param done is the latch counted down once the action finished
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	private static void assertBlocked(CountDownLatch done) throws InterruptedException
+	{
+		assertFalse(done.await(BLOCKED, TimeUnit.MILLISECONDS), "Thread was not blocked.");
+	}
+
+	/**
+	 * Acquires and releases a read lock
+	 *
+	 * @param lock is the lock to read
+	 */
+	private static void read(ReadWriteLock lock)
+	{
+		lock.read().lock();
+		lock.read().unlock();
+	}
+
+	/**
+	 * Acquires and releases a write lock
+	 *
+	 * @param lock is the lock to write
+	 */
+	private static void write(ReadWriteLock lock)
+	{
+		lock.write().lock();
+		lock.write().unlock();
+	}
+
+	/**
+	 * Rules every lock shares with the course {@link ReadWriteLock}
+	 */
+	@Nested
+	public class SharedTests
+	{
+		/**
+		 * Checks the active writer can acquire the write lock again, and only
+		 * releases it once it was released as many times
+		 *
+		 * @param type is the lock to check
+		 * @throws InterruptedException if interrupted while waiting
+		 */
+		@ParameterizedTest
+		@ValueSource(strings = { "monitor", "writer", "stamped" })
+		public void testWriterReentrancy(String type) throws InterruptedException
+		{
+			ReadWriteLock lock = create(type);
+
+			lock.write().lock();
+			lock.write().lock();
+			lock.write().unlock();
+
+			assertTrue(lock.isActiveWriter());
+			CountDownLatch other = startBlocked(() -> write(lock));
+			assertBlocked(other);
+
+			lock.write().unlock();
+			assertFinishes(other);
+		}
+
+		/**
+		 * Checks the active writer can acquire read locks without waiting for itself
+		 *
+		 * @param type is the lock to check
+		 * @throws InterruptedException if interrupted while waiting
+		 */
+		@ParameterizedTest
+		@ValueSource(strings = { "monitor", "writer", "stamped" })
+		public void testWriterReads(String type) throws InterruptedException
+		{
+			ReadWriteLock lock = create(type);
+
+			lock.write().lock();
+			lock.read().lock();
+			lock.read().lock();
+			lock.read().unlock();
+			lock.read().unlock();
+
+			CountDownLatch other = startBlocked(() -> read(lock));
+			assertBlocked(other);
+
+			lock.write().unlock();
+			assertFinishes(other);
+			assertFinishes(start(() -> write(lock)));
+		}
+
+		/**
+		 * Checks the active writer can release the write lock before the read locks
+		 * it took while writing, which then keep out writers but not readers
+		 *
+		 * @param type is the lock to check
+		 * @throws InterruptedException if interrupted while waiting
+		 */
+		@ParameterizedTest
+		@ValueSource(strings = { "monitor", "writer", "stamped" })
+		public void testDowngrade(String type) throws InterruptedException
+		{
+			ReadWriteLock lock = create(type);
+
+			lock.write().lock();
+			lock.read().lock();
+			lock.read().lock();
+			lock.write().unlock();
+
+			assertFinishes(start(() -> read(lock)));
+
+			CountDownLatch writer = startBlocked(() -> write(lock));
+			assertBlocked(writer);
+
+			lock.read().unlock();
+			assertBlocked(writer);
+
+			lock.read().unlock();
+			assertFinishes(writer);
+		}
+
+		/**
+		 * Checks releasing a read lock nobody holds fails
+		 *
+		 * @param type is the lock to check
+		 */
+		@ParameterizedTest
+		@ValueSource(strings = { "monitor", "writer", "stamped" })
+		public void testReadUnlockUnheld(String type)
+		{
+			ReadWriteLock lock = create(type);
+
+			assertThrows(IllegalStateException.class, () -> lock.read().unlock());
+
+			read(lock);
+			assertThrows(IllegalStateException.class, () -> lock.read().unlock());
+		}
+
+		/**
+		 * Checks releasing a write lock nobody holds fails
+		 *
+		 * @param type is the lock to check
+		 */
+		@ParameterizedTest
+		@ValueSource(strings = { "monitor", "writer", "stamped" })
+		public void testWriteUnlockUnheld(String type)
+		{
+			ReadWriteLock lock = create(type);
+
+			assertThrows(IllegalStateException.class, () -> lock.write().unlock());
+
+			write(lock);
+			assertThrows(IllegalStateException.class, () -> lock.write().unlock());
+		}
+
+		/**
+		 * Checks releasing a write lock another thread holds fails, and leaves the
+		 * write lock held
+		 *
+		 * @param type is the lock to check
+		 * @throws InterruptedException if interrupted while waiting
+		 */
+		@ParameterizedTest
+		@ValueSource(strings = { "monitor", "writer", "stamped" })
+		public void testWriteUnlockOtherThread(String type) throws InterruptedException
+		{
+			ReadWriteLock lock = create(type);
+			CountDownLatch release = new CountDownLatch(1);
+			CountDownLatch locked = new CountDownLatch(1);
+
+			CountDownLatch writer = start(() ->
+			{
+				lock.write().lock();
+				locked.countDown();
+
+				try
+				{
+					release.await();
+				}
+				catch (InterruptedException e)
+				{
+					Thread.currentThread().interrupt();
+				}
+
+				lock.write().unlock();
+			});
+
+			assertTrue(locked.await(PATIENCE, TimeUnit.MILLISECONDS));
+			assertThrows(ConcurrentModificationException.class, () -> lock.write().unlock());
+			assertEquals(1, lock.writers());
+
+			release.countDown();
+			assertFinishes(writer);
+			assertEquals(0, lock.writers());
+		}
+	}
+
+	/**
+	 * A waiting writer goes before new readers, but never before a thread that
+	 * already reads
+	 */
+	@Nested
+	public class WriterPreferenceTests
+	{
+		/**
+		 * Checks a new reader waits behind a waiting writer, and goes once the
+		 * writer is done
+		 *
+		 * @throws InterruptedException if interrupted while waiting
+		 */
+		@Test
+		public void testWaitingWriterBlocksReaders() throws InterruptedException
+		{
+			ReadWriteLock lock = new WriterPreferringReadWriteLock();
+			CountDownLatch release = new CountDownLatch(1);
+
+			lock.read().lock();
+
+			CountDownLatch writer = startBlocked(() ->
+			{
+				lock.write().lock();
+
+				try
+				{
+					release.await();
+				}
+				catch (InterruptedException e)
+				{
+					Thread.currentThread().interrupt();
+				}
+
+				lock.write().unlock();
+			});
+
+			CountDownLatch reader = startBlocked(() -> read(lock));
+			assertBlocked(reader);
+
+			// Last Reader Leaves: the Writer Goes First, the New Reader Still Waits
+			lock.read().unlock();
+			assertBlocked(reader);
+			assertEquals(1, lock.writers());
+
+			release.countDown();
+			assertFinishes(writer);
+			assertFinishes(reader);
+		}
+
+		/**
+		 * Checks a thread that already reads can read again while a writer waits,
+		 * instead of waiting for a writer that waits for it
+		 *
+		 * @param type is the lock to check
+		 * @throws InterruptedException if interrupted while waiting
+		 */
+		@ParameterizedTest
+		@ValueSource(strings = { "writer", "stamped" })
+		public void testNestedReaderPassesWaitingWriter(String type) throws InterruptedException
+		{
+			ReadWriteLock lock = create(type);
+
+			lock.read().lock();
+			CountDownLatch writer = startBlocked(() -> write(lock));
+
+			lock.read().lock();
+			assertEquals(2, lock.readers());
+			assertBlocked(writer);
+
+			lock.read().unlock();
+			assertBlocked(writer);
+
+			lock.read().unlock();
+			assertFinishes(writer);
+		}
+	}
+
+	/**
+	 * Only acquisitions that had to wait are counted
+	 */
+	@Nested
+	public class MetricsTests
+	{
+		/**
+		 * Provides the metrics of a lock that keeps them
+		 *
+		 * @param lock is the lock
+		 * @return the metrics of the lock
+		 */
+		private LockMetrics metrics(ReadWriteLock lock)
+		{
+			if (lock instanceof StampedReadWriteLock)
+			{
+				return ((StampedReadWriteLock) lock).getMetrics();
+			}
+
+			return ((WriterPreferringReadWriteLock) lock).getMetrics();
+		}
+
+		/**
+		 * Checks locks that never wait are not counted, including nested reads and
+		 * writes
+		 *
+		 * @param type is the lock to check
+		 */
+		@ParameterizedTest
+		@ValueSource(strings = { "writer", "stamped" })
+		public void testUncontended(String type)
+		{
+			ReadWriteLock lock = create(type);
+
+			for (int i = 0; i < 100; i++)
+			{
+				read(lock);
+				write(lock);
+
+				lock.read().lock();
+				read(lock);
+				lock.read().unlock();
+
+				lock.write().lock();
+				write(lock);
+				read(lock);
+				lock.write().unlock();
+			}
+
+			LockMetrics metrics = metrics(lock);
+			assertEquals(0, metrics.getReadWaits());
+			assertEquals(0, metrics.getWriteWaits());
+			assertEquals(0, metrics.getReadWaitNanos());
+			assertEquals(0, metrics.getWriteWaitNanos());
+			assertEquals(0, metrics.getMaxQueueLength());
+		}
+
+		/**
+		 * Checks a reader blocked by a writer and a writer blocked by a reader are
+		 * each counted once, with the time they waited
+		 *
+		 * @param type is the lock to check
+		 * @throws InterruptedException if interrupted while waiting
+		 */
+		@ParameterizedTest
+		@ValueSource(strings = { "writer", "stamped" })
+		public void testContended(String type) throws InterruptedException
+		{
+			ReadWriteLock lock = create(type);
+			LockMetrics metrics = metrics(lock);
+
+			lock.write().lock();
+			CountDownLatch reader = startBlocked(() -> read(lock));
+			assertEquals(1, metrics.getQueueLength());
+			lock.write().unlock();
+			assertFinishes(reader);
+
+			assertEquals(1, metrics.getReadWaits());
+			assertEquals(0, metrics.getWriteWaits());
+			assertTrue(metrics.getReadWaitNanos() > 0);
+
+			lock.read().lock();
+			CountDownLatch writer = startBlocked(() -> write(lock));
+			assertEquals(1, metrics.getQueueLength());
+			lock.read().unlock();
+			assertFinishes(writer);
+
+			assertEquals(1, metrics.getReadWaits());
+			assertEquals(1, metrics.getWriteWaits());
+			assertTrue(metrics.getWriteWaitNanos() > 0);
+			assertEquals(0, metrics.getQueueLength());
+			assertEquals(1, metrics.getMaxQueueLength());
+		}
+
+		/**
+		 * Checks the counters on their own: waits by kind, the queue right now,
+		 * and the longest queue
+		 */
+		@Test
+		public void testCounters()
+		{
+			LockMetrics metrics = new LockMetrics("Test");
+
+			long first = metrics.startWaiting();
+			long second = metrics.startWaiting();
+			assertEquals(2, metrics.getQueueLength());
+
+			metrics.stopWaiting(first, false);
+			metrics.stopWaiting(second, true);
+
+			long third = metrics.startWaiting();
+			metrics.stopWaiting(third, true);
+
+			assertEquals(1, metrics.getReadWaits());
+			assertEquals(2, metrics.getWriteWaits());
+			assertEquals(0, metrics.getQueueLength());
+			assertEquals(2, metrics.getMaxQueueLength());
+		}
+	}
+}